@@ -0,0 +1,113 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic shapes for the benchmarks, sized like a level on a 1200 x 900 playfield.
+ */
+public final class BenchmarkShapes {
+
+    public static final float CENTER_X = 600f;
+    public static final float CENTER_Y = 450f;
+
+    private BenchmarkShapes() {
+    }
+
+    /**
+     * A star-shaped polygon of the given number of vertices around the centre, with radii between
+     * 200 and 400. Every vertex can see the centre, so straight paths through it stay inside.
+     */
+    public static float[] starPolygon(int vertices, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[] xy = new float[vertices * 2];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double radius = 200 + 200 * random.nextDouble();
+            xy[2 * i] = (float) (CENTER_X + radius * Math.cos(angle));
+            xy[2 * i + 1] = (float) (CENTER_Y + radius * Math.sin(angle));
+        }
+        return xy;
+    }
+
+    public static Perimeter starPerimeter(int vertices, long seed) {
+        return new Perimeter(starPolygon(vertices, seed), vertices);
+    }
+
+    /**
+     * A drawing path of the given number of points that cuts the perimeter in two: from near vertex
+     * 0 past the centre to near the opposite vertex, so that {@link PolygonSplitter} can take it.
+     * Each end is the vertex closest to the centre among the next eighth of the vertices, so the
+     * path stays clear of the spikes around it even when those are less than a pixel apart. The
+     * spikes next to such a vertex run almost straight out from the centre, so the path bends
+     * 50 px to the side of the centre to leave both ends at an angle to them.
+     */
+    public static List<Vector3f> chordPath(Perimeter perimeter, int points) {
+        int window = Math.max(1, perimeter.size() / 8);
+        Vector3f start = perimeter.getVertex(innermostVertex(perimeter, 0, window), new Vector3f());
+        Vector3f end = perimeter.getVertex(innermostVertex(perimeter, perimeter.size() / 2, window), new Vector3f());
+        Vector3f radial = start.subtract(CENTER_X, CENTER_Y, 0).normalizeLocal();
+        Vector3f center = new Vector3f(CENTER_X + radial.y * 50, CENTER_Y - radial.x * 50, 0);
+        List<Vector3f> path = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            float t = (float) i / (points - 1);
+            path.add(t < 0.5f
+                    ? new Vector3f().interpolateLocal(start, center, t * 2)
+                    : new Vector3f().interpolateLocal(center, end, t * 2 - 1));
+        }
+        path.get(0).set(start);
+        path.get(points - 1).set(end);
+        return path;
+    }
+
+    /**
+     * The vertex closest to the centre among {@code count} vertices from {@code first} on.
+     */
+    private static int innermostVertex(Perimeter perimeter, int first, int count) {
+        int best = first;
+        float bestRadius = Float.MAX_VALUE;
+        for (int i = first; i < first + count; i++) {
+            float dx = perimeter.x(i) - CENTER_X;
+            float dy = perimeter.y(i) - CENTER_Y;
+            float radius = dx * dx + dy * dy;
+            if (radius < bestRadius) {
+                best = i;
+                bestRadius = radius;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A wandering drawing path with a point every few pixels, as the player leaves them.
+     */
+    public static List<Vector3f> wanderingPath(int points, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Vector3f> path = new ArrayList<>(points);
+        float x = CENTER_X;
+        float y = CENTER_Y;
+        double heading = 0;
+        for (int i = 0; i < points; i++) {
+            path.add(new Vector3f(x, y, 0));
+            heading += random.nextDouble(-0.5, 0.5);
+            x += (float) (4 * Math.cos(heading));
+            y += (float) (4 * Math.sin(heading));
+        }
+        return path;
+    }
+
+    /**
+     * Points spread over the playfield around the perimeter, inside and outside it.
+     */
+    public static Vector3f[] scatteredPoints(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Vector3f[] points = new Vector3f[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new Vector3f((float) random.nextDouble(100, 1100), (float) random.nextDouble(0, 900), 0);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,61 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PerimeterManager#calculateNewPerimeter} for a path cutting the perimeter through its
+ * middle. Setup checks that {@link PolygonSplitter} handles every shape, so the results never
+ * include a fallback to the JTS overlay.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureBenchmark {
+
+    @Param({"4", "50", "500", "5000"})
+    public int vertices;
+
+    @Param({"2", "20", "200"})
+    public int pathLength;
+
+    private final PerimeterManager perimeterManager = new PerimeterManager();
+    private Perimeter perimeter;
+    private List<Vector3f> path;
+    private final Vector3f enemyPosition = new Vector3f(BenchmarkShapes.CENTER_X, BenchmarkShapes.CENTER_Y + 50, 0);
+
+    @Setup
+    public void setup() {
+        perimeter = BenchmarkShapes.starPerimeter(vertices, 1);
+        path = BenchmarkShapes.chordPath(perimeter, pathLength);
+        PolygonSplitter.Split split = PolygonSplitter.split(perimeter, path, PerimeterManager.SNAP_TOLERANCE);
+        if (split == null || split.select(enemyPosition) == null) {
+            throw new IllegalStateException("The benchmark path falls back to the overlay for " + vertices
+                    + " vertices and path length " + pathLength);
+        }
+        if (perimeterManager.calculateNewPerimeter(perimeter, path, enemyPosition) == perimeter) {
+            throw new IllegalStateException("The benchmark path does not capture anything");
+        }
+    }
+
+    @Benchmark
+    public Perimeter calculateNewPerimeter() {
+        return perimeterManager.calculateNewPerimeter(perimeter, path, enemyPosition);
+    }
+}
@@ -0,0 +1,74 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@link DrawingTrail} mesh: a whole trail growing point by point, as while
+ * drawing, and the per-frame update of a finished path with a moving tip. No renderer is needed;
+ * the mesh buffers are plain direct buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrawingTrailBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pathLength;
+
+    private DrawingTrail trail;
+    private List<Vector3f> points;
+    private final List<Vector3f> growingPath = new ArrayList<>();
+    private float tipOffset;
+
+    @Setup
+    public void setup() {
+        trail = new DrawingTrail(null);
+        points = BenchmarkShapes.wanderingPath(pathLength, 1);
+        growingPath.addAll(points);
+        trail.update(points, points.get(pathLength - 1).x, points.get(pathLength - 1).y);
+    }
+
+    /**
+     * One trail from the first point to {@code pathLength} points, one update per new point.
+     */
+    @Benchmark
+    public DrawingTrail growTrail() {
+        trail.clear();
+        growingPath.clear();
+        for (int i = 0; i < pathLength; i++) {
+            Vector3f point = points.get(i);
+            growingPath.add(point);
+            trail.update(growingPath, point.x + 1, point.y);
+        }
+        return trail;
+    }
+
+    /**
+     * One frame of a finished path: only the tip moves.
+     */
+    @Benchmark
+    public DrawingTrail moveTip() {
+        Vector3f last = points.get(pathLength - 1);
+        tipOffset = tipOffset > 3 ? 0 : tipOffset + 0.5f;
+        trail.update(points, last.x + tipOffset, last.y);
+        return trail;
+    }
+}
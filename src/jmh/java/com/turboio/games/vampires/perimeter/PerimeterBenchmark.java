@@ -0,0 +1,63 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a {@link Perimeter} (its scanline edge table) and point-in-polygon tests against it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerimeterBenchmark {
+
+    private static final int POINTS = 1024;
+
+    @Param({"4", "50", "500", "5000"})
+    public int vertices;
+
+    private float[] xy;
+    private Perimeter perimeter;
+    private Vector3f[] points;
+
+    @Setup
+    public void setup() {
+        xy = BenchmarkShapes.starPolygon(vertices, 1);
+        perimeter = new Perimeter(xy, vertices);
+        points = BenchmarkShapes.scatteredPoints(POINTS, 2);
+    }
+
+    @Benchmark
+    public Perimeter construct() {
+        return new Perimeter(xy, vertices);
+    }
+
+    /**
+     * {@value #POINTS} point-in-polygon tests.
+     */
+    @Benchmark
+    public int contains() {
+        int inside = 0;
+        for (Vector3f point : points) {
+            if (perimeter.contains(point.x, point.y)) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+}
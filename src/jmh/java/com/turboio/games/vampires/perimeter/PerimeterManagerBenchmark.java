@@ -0,0 +1,69 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-step {@link PerimeterManager} queries of the player: snapping to the nearest boundary
+ * point and intersecting a move with the boundary. The perimeter's JTS structures are built on
+ * first use and cached, so this measures the steady state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerimeterManagerBenchmark {
+
+    private static final int QUERIES = 64;
+
+    @Param({"4", "50", "500", "5000"})
+    public int vertices;
+
+    private final PerimeterManager perimeterManager = new PerimeterManager();
+    private Perimeter perimeter;
+    private Vector3f[] points;
+    // Moves from the centre to well outside the perimeter, so each crosses the boundary once.
+    private LineString[] moves;
+    private int next;
+
+    @Setup
+    public void setup() {
+        perimeter = BenchmarkShapes.starPerimeter(vertices, 1);
+        points = BenchmarkShapes.scatteredPoints(QUERIES, 2);
+        moves = new LineString[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            double angle = 2 * Math.PI * (i + 0.5) / QUERIES;
+            moves[i] = Perimeter.GEOMETRY_FACTORY.createLineString(new Coordinate[]{
+                    new Coordinate(BenchmarkShapes.CENTER_X, BenchmarkShapes.CENTER_Y),
+                    new Coordinate(BenchmarkShapes.CENTER_X + 500 * Math.cos(angle), BenchmarkShapes.CENTER_Y + 500 * Math.sin(angle))});
+        }
+    }
+
+    @Benchmark
+    public Vector3f getClosestPointOnPerimeter() {
+        next = (next + 1) % QUERIES;
+        return perimeterManager.getClosestPointOnPerimeter(points[next], perimeter);
+    }
+
+    @Benchmark
+    public Vector3f getIntersection() {
+        next = (next + 1) % QUERIES;
+        return perimeterManager.getIntersection(moves[next], perimeter);
+    }
+}
@@ -0,0 +1,54 @@
+package com.turboio.games.vampires.perimeter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PerimeterRenderer#triangulate} of the day field with either triangulator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriangulationBenchmark {
+
+    @Param({"4", "50", "500", "5000"})
+    public int vertices;
+
+    @Param({"earcut", "poly2tri"})
+    public String triangulator;
+
+    private PerimeterRenderer renderer;
+    private Perimeter perimeter;
+
+    @Setup
+    public void setup() {
+        // Triangulation never touches the asset manager.
+        renderer = new PerimeterRenderer(null, 1200, 900);
+        if ("poly2tri".equals(triangulator)) {
+            renderer.setTriangulator(new Poly2TriTriangulator());
+        }
+        perimeter = BenchmarkShapes.starPerimeter(vertices, 1);
+        if (renderer.triangulate(perimeter) == null) {
+            throw new IllegalStateException(triangulator + " failed on the benchmark perimeter");
+        }
+    }
+
+    @Benchmark
+    public int[] triangulate() {
+        return renderer.triangulate(perimeter);
+    }
+}
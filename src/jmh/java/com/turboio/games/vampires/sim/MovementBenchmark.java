@@ -0,0 +1,55 @@
+package com.turboio.games.vampires.sim;
+
+import com.turboio.games.vampires.perimeter.BenchmarkShapes;
+import com.turboio.games.vampires.perimeter.Perimeter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulation step of an enemy moving inside the perimeter, which is mostly its wall queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark {
+
+    private static final float DT = 1f / 120f;
+
+    @Param({"4", "50", "500", "5000"})
+    public int vertices;
+
+    @Param({"wandering", "bouncing"})
+    public String movement;
+
+    private Perimeter perimeter;
+    private Enemy enemy;
+
+    @Setup
+    public void setup() {
+        perimeter = BenchmarkShapes.starPerimeter(vertices, 1);
+        SplittableRandom random = new SplittableRandom(1);
+        EnemyMovement enemyMovement = "bouncing".equals(movement) ? new BouncingMovement(random) : new WanderingMovement(random);
+        enemy = new Enemy(BenchmarkShapes.CENTER_X, BenchmarkShapes.CENTER_Y, 24f, 200f, enemyMovement);
+    }
+
+    @Benchmark
+    public float step() {
+        enemy.getMovement().step(enemy, perimeter, DT);
+        return enemy.getPosition().x;
+    }
+}
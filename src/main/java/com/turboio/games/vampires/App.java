@@ -1,6 +1,7 @@
 package com.turboio.games.vampires;
 
 import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AppState;
 import com.jme3.math.Vector3f;
 import com.jme3.post.FilterPostProcessor;
 import com.jme3.post.filters.BloomFilter;
@@ -11,8 +12,27 @@ public class App extends SimpleApplication {
 
     private static final boolean SHOW_STATS = false;
 
+    private final AppState firstState;
+
+    public App() {
+        this(new StartScreenAppState());
+    }
+
+    /**
+     * An app that starts with the given state instead of the start screen.
+     */
+    public App(AppState firstState) {
+        this.firstState = firstState;
+    }
+
     public static void main(String[] args) {
-        App app = new App();
+        launch(new App());
+    }
+
+    /**
+     * Starts the given app with the game's window settings.
+     */
+    public static void launch(App app) {
         AppSettings settings = new AppSettings(true);
         settings.setWidth(1200);
         settings.setHeight(900);
@@ -39,7 +59,7 @@ public class App extends SimpleApplication {
         fpp.addFilter(bloom);
         guiViewPort.addProcessor(fpp);
 
-        stateManager.attach(new StartScreenAppState());
+        stateManager.attach(firstState);
         inputManager.setCursorVisible(true);
     }
 
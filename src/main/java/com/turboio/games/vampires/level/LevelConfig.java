@@ -9,6 +9,17 @@ public class LevelConfig {
     private String playerSprite;
     private List<Vector2> perimeterVertices;
     private List<EnemyConfig> enemies;
+    // "vector" (default) counts captured area from the polygon, "grid" on a raster of gridCellSize cells.
+    private String territory;
+    private float gridCellSize;
+    // Max boundary error of the post-capture simplification; null uses the PerimeterManager default.
+    private Float simplificationTolerance;
+    // "earcut" (default) or "poly2tri" for the day field triangulation.
+    private String triangulator;
+    // "vector" (default) draws the day field as a triangulation, "mask" through a reveal mask texture.
+    private String dayField;
+    // Seed of the level's random streams; null picks a new one every run.
+    private Long seed;
 
     public String getBackgroundImage() {
         return backgroundImage;
@@ -57,4 +68,52 @@ public class LevelConfig {
     public void setEnemies(List<EnemyConfig> enemies) {
         this.enemies = enemies;
     }
+
+    public String getTerritory() {
+        return territory;
+    }
+
+    public void setTerritory(String territory) {
+        this.territory = territory;
+    }
+
+    public float getGridCellSize() {
+        return gridCellSize;
+    }
+
+    public void setGridCellSize(float gridCellSize) {
+        this.gridCellSize = gridCellSize;
+    }
+
+    public Float getSimplificationTolerance() {
+        return simplificationTolerance;
+    }
+
+    public void setSimplificationTolerance(Float simplificationTolerance) {
+        this.simplificationTolerance = simplificationTolerance;
+    }
+
+    public String getTriangulator() {
+        return triangulator;
+    }
+
+    public void setTriangulator(String triangulator) {
+        this.triangulator = triangulator;
+    }
+
+    public String getDayField() {
+        return dayField;
+    }
+
+    public void setDayField(String dayField) {
+        this.dayField = dayField;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
 }
@@ -0,0 +1,57 @@
+package com.turboio.games.vampires.perimeter;
+
+/**
+ * Everything a capture produces before it touches the scene graph: the new perimeter, the
+ * triangulation of its day field, the captured area and the captured region. Built on the capture
+ * worker and handed to the render thread, which only has to apply it.
+ */
+public final class CaptureResult {
+
+    private final Perimeter perimeter;
+    private final int[] dayFieldTriangles;
+    private final double capturedArea;
+    private final float[][] capturedRegion;
+
+    public CaptureResult(Perimeter perimeter, int[] dayFieldTriangles, double capturedArea, float[][] capturedRegion) {
+        this.perimeter = perimeter;
+        this.dayFieldTriangles = dayFieldTriangles;
+        this.capturedArea = capturedArea;
+        this.capturedRegion = capturedRegion;
+    }
+
+    public Perimeter getPerimeter() {
+        return perimeter;
+    }
+
+    /**
+     * Day field triangulation for {@link TriangulatedDayField}, or null if the day field does not
+     * need one.
+     */
+    public int[] getDayFieldTriangles() {
+        return dayFieldTriangles;
+    }
+
+    /**
+     * Area of the region claimed by this capture. The simplification stage may move the new
+     * perimeter's boundary by a fraction of a pixel, so this can differ from the drop in
+     * {@link Perimeter#getArea()} by a correspondingly tiny amount.
+     */
+    public double getCapturedArea() {
+        return capturedArea;
+    }
+
+    /**
+     * Rings of packed {@code x, y} pairs whose even-odd interior is the region claimed by this
+     * capture, as filled by {@link RevealMaskDayField}; null if nothing was captured.
+     */
+    public float[][] getCapturedRegion() {
+        return capturedRegion;
+    }
+
+    /**
+     * Returns a copy of this result carrying the given day field triangulation.
+     */
+    public CaptureResult withDayFieldTriangles(int[] dayFieldTriangles) {
+        return new CaptureResult(perimeter, dayFieldTriangles, capturedArea, capturedRegion);
+    }
+}
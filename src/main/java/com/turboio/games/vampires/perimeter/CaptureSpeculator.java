@@ -0,0 +1,208 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Precomputes the capture the player is most likely to make while they are still drawing. Between
+ * turns the path only grows along a straight line, so the closing point is where the current
+ * heading first meets the boundary. Each time the path gains a vertex (or the heading changes) the
+ * predicted path is split on the worker and both candidate perimeters, with their day field
+ * triangulations, are kept ready. When the real intersection is exactly the predicted point,
+ * {@link #take} hands back the side that keeps the enemy without any further work. The final path
+ * is then identical to the predicted one, so the result is the one
+ * {@link PerimeterManager#calculateCapture} would give; anything less than an exact match is
+ * computed from scratch, so captures never depend on whether a speculation was ready.
+ * <p>
+ * {@link #speculate}, {@link #take} and {@link #clear} are meant to be called from the render
+ * thread; the speculation itself runs on the given executor.
+ */
+public final class CaptureSpeculator {
+
+    private static final Logger logger = Logger.getLogger(CaptureSpeculator.class.getName());
+    private static final float SNAP_TOLERANCE = 0.1f;
+    // Ray hits closer than this to the origin are the edge the path starts on.
+    private static final float MIN_RAY_DISTANCE = 0.5f;
+
+    private final Executor executor;
+    private final PerimeterManager manager;
+    private final PerimeterRenderer renderer;
+
+    // Render thread only: what the latest request was made for.
+    private Perimeter requestedPerimeter;
+    private int requestedPathSize = -1;
+    private final Vector3f requestedHeading = new Vector3f();
+
+    private volatile int generation;
+    private volatile Speculation latest;
+
+    public CaptureSpeculator(Executor executor, PerimeterManager manager, PerimeterRenderer renderer) {
+        this.executor = executor;
+        this.manager = manager;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Schedules a speculation for the given path and heading unless one was already requested for
+     * the same perimeter, path length and heading. The path is copied before returning.
+     */
+    public void speculate(Perimeter perimeter, List<Vector3f> path, Vector3f heading) {
+        if (perimeter == null || path == null || path.isEmpty() || heading == null || heading.lengthSquared() == 0f) {
+            return;
+        }
+        if (perimeter == requestedPerimeter && path.size() == requestedPathSize && heading.equals(requestedHeading)) {
+            return;
+        }
+        requestedPerimeter = perimeter;
+        requestedPathSize = path.size();
+        requestedHeading.set(heading);
+
+        int ticket = ++generation;
+        latest = null;
+        List<Vector3f> pathCopy = new ArrayList<>(path.size());
+        for (Vector3f p : path) {
+            pathCopy.add(p.clone());
+        }
+        Vector3f direction = heading.clone();
+        executor.execute(() -> {
+            if (ticket != generation) {
+                return; // Superseded before it started.
+            }
+            Speculation speculation = compute(perimeter, pathCopy, direction);
+            if (speculation != null && ticket == generation) {
+                latest = speculation;
+            }
+        });
+    }
+
+    /**
+     * Returns the precomputed capture for the given final path if it is exactly the path of the
+     * current speculation, or null if the capture has to be computed from scratch. The speculation is
+     * consumed either way.
+     */
+    public CaptureResult take(Perimeter perimeter, List<Vector3f> finalPath, Vector3f enemyPosition) {
+        Speculation speculation = latest;
+        clear();
+        if (speculation == null || speculation.perimeter != perimeter || !speculation.matches(finalPath)) {
+            return null;
+        }
+        float[] kept = speculation.split.select(enemyPosition);
+        Candidate candidate = kept == speculation.split.getFirst() ? speculation.first
+                : kept == speculation.split.getSecond() ? speculation.second
+                : null;
+        if (candidate == null) {
+            return null;
+        }
+        return new CaptureResult(candidate.perimeter, candidate.dayFieldTriangles,
+                speculation.split.getCapturedArea(kept), new float[][]{speculation.split.getCaptured(kept)});
+    }
+
+    /**
+     * Drops the current speculation and any that are still queued.
+     */
+    public void clear() {
+        generation++;
+        latest = null;
+        requestedPerimeter = null;
+        requestedPathSize = -1;
+        requestedHeading.set(0, 0, 0);
+    }
+
+    private Speculation compute(Perimeter perimeter, List<Vector3f> path, Vector3f heading) {
+        Vector3f origin = path.get(path.size() - 1);
+        Vector3f closing = castToBoundary(perimeter, origin.x, origin.y, heading.x, heading.y);
+        if (closing == null) {
+            return null;
+        }
+        List<Vector3f> predicted = new ArrayList<>(path);
+        predicted.add(closing);
+        PolygonSplitter.Split split = PolygonSplitter.split(perimeter, predicted, SNAP_TOLERANCE);
+        if (split == null) {
+            return null;
+        }
+        try {
+            return new Speculation(perimeter, predicted, split, candidate(split.getFirst()), candidate(split.getSecond()));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Capture speculation failed", e);
+            return null;
+        }
+    }
+
+    private Candidate candidate(float[] ring) {
+        Perimeter candidate = manager.createPerimeter(ring);
+        return new Candidate(candidate, renderer.triangulateDayField(candidate));
+    }
+
+    /**
+     * First point where the ray from (ox, oy) along (dx, dy) meets the boundary, ignoring hits
+     * right at the origin.
+     */
+    static Vector3f castToBoundary(Perimeter perimeter, float ox, float oy, float dx, float dy) {
+        int n = perimeter.size();
+        double best = Double.POSITIVE_INFINITY;
+        double length = Math.hypot(dx, dy);
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            double ax = perimeter.x(i), ay = perimeter.y(i);
+            double ex = perimeter.x(j) - ax;
+            double ey = perimeter.y(j) - ay;
+            double denominator = dx * ey - dy * ex;
+            if (denominator == 0) {
+                continue; // Parallel to the ray.
+            }
+            double t = ((ax - ox) * ey - (ay - oy) * ex) / denominator;
+            double u = ((ax - ox) * dy - (ay - oy) * dx) / denominator;
+            if (u < 0 || u > 1 || t * length < MIN_RAY_DISTANCE) {
+                continue;
+            }
+            best = Math.min(best, t);
+        }
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        return new Vector3f((float) (ox + dx * best), (float) (oy + dy * best), 0f);
+    }
+
+    private static final class Candidate {
+        final Perimeter perimeter;
+        final int[] dayFieldTriangles;
+
+        Candidate(Perimeter perimeter, int[] dayFieldTriangles) {
+            this.perimeter = perimeter;
+            this.dayFieldTriangles = dayFieldTriangles;
+        }
+    }
+
+    private static final class Speculation {
+        final Perimeter perimeter;
+        final List<Vector3f> path;
+        final PolygonSplitter.Split split;
+        final Candidate first;
+        final Candidate second;
+
+        Speculation(Perimeter perimeter, List<Vector3f> path, PolygonSplitter.Split split, Candidate first, Candidate second) {
+            this.perimeter = perimeter;
+            this.path = path;
+            this.split = split;
+            this.first = first;
+            this.second = second;
+        }
+
+        boolean matches(List<Vector3f> finalPath) {
+            if (finalPath == null || finalPath.size() != path.size()) {
+                return false;
+            }
+            for (int i = 0; i < path.size(); i++) {
+                if (!path.get(i).equals(finalPath.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
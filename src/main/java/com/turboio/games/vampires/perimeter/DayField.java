@@ -0,0 +1,18 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.scene.Geometry;
+
+/**
+ * The textured "day" area inside the perimeter, created by
+ * {@link PerimeterRenderer#createDayField(Perimeter)} once per level and kept up to date as
+ * captures are committed.
+ */
+public interface DayField {
+
+    Geometry getGeometry();
+
+    /**
+     * Shows the perimeter left by the given capture. Must be called on the render thread.
+     */
+    void update(CaptureResult capture);
+}
@@ -0,0 +1,188 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+
+/**
+ * The glowing ribbon behind the player while drawing: the committed drawing path plus a live
+ * segment to the player's current position (the tip). Every path point becomes a left and a right
+ * vertex offset along the point's normal.
+ * <p>
+ * The mesh and its direct buffers live for the whole level and only grow, doubling when the path
+ * outgrows them. Points that were already written keep their vertices: a frame rewrites only the
+ * tip and the point before it (whose normal depends on the tip), plus any newly committed points.
+ * The index pattern depends on nothing but the segment number, so it is written once per
+ * allocation. The V texture coordinate is the cached prefix distance along the path; the trail
+ * texture does not vary along V, so it never has to be renormalised as the path grows. Updates
+ * allocate nothing.
+ */
+public final class DrawingTrail {
+
+    private static final float WIDTH = 5f;
+    private static final float Z = 3f;
+
+    private final Geometry geometry;
+    private final Mesh mesh;
+
+    private FloatBuffer positions;
+    private FloatBuffer texCoords;
+    private IntBuffer indices;
+    // Cached points, the tip last, and the path length up to each of them.
+    private float[] pointX;
+    private float[] pointY;
+    private float[] distances;
+    private int pointCount;
+
+    DrawingTrail(Material material) {
+        mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Triangles);
+        mesh.setDynamic();
+        allocate(64);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, texCoords);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+
+        geometry = new Geometry("DrawingPath", mesh);
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setLocalTranslation(0, 0, Z);
+        geometry.setCullHint(Spatial.CullHint.Always);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Shows the given committed path followed by a live segment to the tip. Points the trail has
+     * already seen are recognised and left alone, so call this every frame with the same growing
+     * path. Must be called on the render thread.
+     */
+    public void update(List<Vector3f> path, float tipX, float tipY) {
+        if (path == null || path.isEmpty()) {
+            clear();
+            return;
+        }
+        int count = path.size() + 1;
+        int oldCount = pointCount;
+        int kept = cachedPoints(path);
+        if (pointX.length < count) {
+            allocate(Math.max(count, pointX.length * 2));
+            kept = 0;
+        }
+
+        for (int i = kept; i < count; i++) {
+            if (i < count - 1) {
+                Vector3f point = path.get(i);
+                pointX[i] = point.x;
+                pointY[i] = point.y;
+            } else {
+                pointX[i] = tipX;
+                pointY[i] = tipY;
+            }
+            distances[i] = i == 0 ? 0f : distances[i - 1]
+                    + (float) Math.hypot(pointX[i] - pointX[i - 1], pointY[i] - pointY[i - 1]);
+        }
+        pointCount = count;
+        positions.limit(count * 6);
+        texCoords.limit(count * 4);
+        for (int i = Math.max(0, kept - 1); i < count; i++) {
+            writePoint(i);
+        }
+
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.getBuffer(VertexBuffer.Type.TexCoord).updateData(texCoords);
+        if (count != oldCount || kept == 0) {
+            indices.limit((count - 1) * 6);
+            mesh.getBuffer(VertexBuffer.Type.Index).updateData(indices);
+            mesh.updateCounts();
+        }
+        mesh.updateBound();
+        geometry.updateModelBound();
+        geometry.setCullHint(Spatial.CullHint.Never);
+    }
+
+    /**
+     * Hides the trail and forgets the cached path.
+     */
+    public void clear() {
+        if (pointCount == 0) {
+            return;
+        }
+        pointCount = 0;
+        geometry.setCullHint(Spatial.CullHint.Always);
+    }
+
+    /**
+     * Number of leading points of the cached trail, the tip excluded, that still match the path.
+     */
+    private int cachedPoints(List<Vector3f> path) {
+        int committed = pointCount - 1;
+        if (committed <= 0 || committed > path.size()) {
+            return 0;
+        }
+        Vector3f first = path.get(0);
+        Vector3f last = path.get(committed - 1);
+        if (first.x != pointX[0] || first.y != pointY[0]
+                || last.x != pointX[committed - 1] || last.y != pointY[committed - 1]) {
+            return 0;
+        }
+        return committed;
+    }
+
+    private void writePoint(int i) {
+        int prev = i == 0 ? i : i - 1;
+        int next = i == pointCount - 1 ? i : i + 1;
+        float dirX = pointX[next] - pointX[prev];
+        float dirY = pointY[next] - pointY[prev];
+        float lengthSquared = dirX * dirX + dirY * dirY;
+        if (lengthSquared < 1e-4f) {
+            dirX = 0f;
+            dirY = 1f;
+        } else {
+            float inverseLength = 1f / (float) Math.sqrt(lengthSquared);
+            dirX *= inverseLength;
+            dirY *= inverseLength;
+        }
+        float offsetX = -dirY * WIDTH / 2f;
+        float offsetY = dirX * WIDTH / 2f;
+
+        int p = i * 6;
+        positions.put(p, pointX[i] + offsetX).put(p + 1, pointY[i] + offsetY).put(p + 2, Z);
+        positions.put(p + 3, pointX[i] - offsetX).put(p + 4, pointY[i] - offsetY).put(p + 5, Z);
+        int t = i * 4;
+        texCoords.put(t, 0f).put(t + 1, distances[i]);
+        texCoords.put(t + 2, 1f).put(t + 3, distances[i]);
+    }
+
+    private void allocate(int capacity) {
+        pointX = new float[capacity];
+        pointY = new float[capacity];
+        distances = new float[capacity];
+        positions = BufferUtils.createFloatBuffer(capacity * 6);
+        texCoords = BufferUtils.createFloatBuffer(capacity * 4);
+        indices = BufferUtils.createIntBuffer((capacity - 1) * 6);
+        for (int i = 0; i < capacity - 1; i++) {
+            int left0 = i * 2;
+            int right0 = left0 + 1;
+            int left1 = left0 + 2;
+            int right1 = left1 + 1;
+            indices.put(left0).put(right0).put(left1);
+            indices.put(left1).put(right0).put(right1);
+        }
+        positions.limit(0);
+        texCoords.limit(0);
+        indices.limit(0);
+        pointCount = 0;
+    }
+}
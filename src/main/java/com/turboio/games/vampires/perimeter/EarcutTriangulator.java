@@ -0,0 +1,516 @@
+package com.turboio.games.vampires.perimeter;
+
+import java.util.Arrays;
+
+/**
+ * Ear-clipping triangulator in the style of Mapbox's earcut, working on primitive arrays only.
+ * The ring is kept as a doubly linked list of node indices; for larger polygons nodes are also
+ * threaded through a second list sorted by z-order (Morton) code, so the "is any vertex inside
+ * this ear" test only visits vertices near the ear instead of the whole ring.
+ * <p>
+ * When no ear can be found it retries after dropping collinear and duplicate points, then after
+ * curing small self-intersections, and finally by splitting the polygon along a valid diagonal,
+ * so degenerate captured shapes still produce a usable triangulation.
+ */
+public final class EarcutTriangulator implements Triangulator {
+
+    // Below this many vertices the plain O(n^2) ear test is faster than building the z-order index.
+    private static final int HASH_THRESHOLD = 80;
+
+    @Override
+    public int[] triangulate(Perimeter perimeter) {
+        if (perimeter == null || perimeter.size() < 3) {
+            return new int[0];
+        }
+        return new Earcut(perimeter).run();
+    }
+
+    /**
+     * State of one triangulation. Nodes live in parallel arrays; -1 stands for "no node".
+     */
+    private static final class Earcut {
+        private double[] x;
+        private double[] y;
+        private int[] vertex;
+        private int[] prev;
+        private int[] next;
+        private int[] z;
+        private int[] prevZ;
+        private int[] nextZ;
+        private int nodeCount;
+        private final int outer;
+
+        private int[] triangles;
+        private int triangleCount;
+
+        private double minX;
+        private double minY;
+        private double invSize;
+
+        Earcut(Perimeter perimeter) {
+            int n = perimeter.size();
+            int capacity = n + 16;
+            x = new double[capacity];
+            y = new double[capacity];
+            vertex = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            z = new int[capacity];
+            prevZ = new int[capacity];
+            nextZ = new int[capacity];
+            triangles = new int[Math.max(3, (n - 2) * 3)];
+
+            // Perimeters are counter-clockwise, which is the orientation the ear test expects.
+            int last = -1;
+            for (int i = 0; i < n; i++) {
+                last = insertNode(i, perimeter.x(i), perimeter.y(i), last);
+            }
+            if (equal(last, next[last])) {
+                int following = next[last];
+                removeNode(last);
+                last = following;
+            }
+            this.outer = last;
+
+            if (n > HASH_THRESHOLD) {
+                double maxX = minX = perimeter.x(0);
+                double maxY = minY = perimeter.y(0);
+                for (int i = 1; i < n; i++) {
+                    minX = Math.min(minX, perimeter.x(i));
+                    minY = Math.min(minY, perimeter.y(i));
+                    maxX = Math.max(maxX, perimeter.x(i));
+                    maxY = Math.max(maxY, perimeter.y(i));
+                }
+                double size = Math.max(maxX - minX, maxY - minY);
+                invSize = size != 0 ? 32767 / size : 0;
+            }
+        }
+
+        int[] run() {
+            if (outer < 0 || next[outer] == prev[outer]) {
+                return new int[0];
+            }
+            earcutLinked(outer, 0);
+            return triangleCount == triangles.length ? triangles : Arrays.copyOf(triangles, triangleCount);
+        }
+
+        private void earcutLinked(int ear, int pass) {
+            if (ear < 0) {
+                return;
+            }
+            if (pass == 0 && invSize != 0) {
+                indexCurve(ear);
+            }
+
+            int stop = ear;
+            while (prev[ear] != next[ear]) {
+                int p = prev[ear];
+                int n = next[ear];
+
+                if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+                    addTriangle(vertex[p], vertex[ear], vertex[n]);
+                    removeNode(ear);
+                    // Skipping the next vertex leads to less sliver triangles.
+                    ear = next[n];
+                    stop = next[n];
+                    continue;
+                }
+
+                ear = n;
+                if (ear == stop) {
+                    if (pass == 0) {
+                        earcutLinked(filterPoints(ear, -1), 1);
+                    } else if (pass == 1) {
+                        ear = cureLocalIntersections(filterPoints(ear, -1));
+                        earcutLinked(ear, 2);
+                    } else {
+                        splitEarcut(ear);
+                    }
+                    break;
+                }
+            }
+        }
+
+        private boolean isEar(int ear) {
+            int a = prev[ear], b = ear, c = next[ear];
+            if (area(a, b, c) >= 0) {
+                return false; // Reflex, can't be an ear.
+            }
+            double x0 = Math.min(x[a], Math.min(x[b], x[c]));
+            double y0 = Math.min(y[a], Math.min(y[b], y[c]));
+            double x1 = Math.max(x[a], Math.max(x[b], x[c]));
+            double y1 = Math.max(y[a], Math.max(y[b], y[c]));
+
+            int p = next[c];
+            while (p != a) {
+                if (x[p] >= x0 && x[p] <= x1 && y[p] >= y0 && y[p] <= y1
+                        && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                        && area(prev[p], p, next[p]) >= 0) {
+                    return false;
+                }
+                p = next[p];
+            }
+            return true;
+        }
+
+        private boolean isEarHashed(int ear) {
+            int a = prev[ear], b = ear, c = next[ear];
+            if (area(a, b, c) >= 0) {
+                return false;
+            }
+            double x0 = Math.min(x[a], Math.min(x[b], x[c]));
+            double y0 = Math.min(y[a], Math.min(y[b], y[c]));
+            double x1 = Math.max(x[a], Math.max(x[b], x[c]));
+            double y1 = Math.max(y[a], Math.max(y[b], y[c]));
+
+            int minZ = zOrder(x0, y0);
+            int maxZ = zOrder(x1, y1);
+            int p = prevZ[ear];
+            int n = nextZ[ear];
+
+            // Look for points inside the triangle in both directions of the z-order list.
+            while (p >= 0 && z[p] >= minZ && n >= 0 && z[n] <= maxZ) {
+                if (blocksEar(p, a, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                p = prevZ[p];
+                if (blocksEar(n, a, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                n = nextZ[n];
+            }
+            while (p >= 0 && z[p] >= minZ) {
+                if (blocksEar(p, a, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                p = prevZ[p];
+            }
+            while (n >= 0 && z[n] <= maxZ) {
+                if (blocksEar(n, a, c, x0, y0, x1, y1)) {
+                    return false;
+                }
+                n = nextZ[n];
+            }
+            return true;
+        }
+
+        private boolean blocksEar(int p, int a, int c, double x0, double y0, double x1, double y1) {
+            int b = next[a];
+            return x[p] >= x0 && x[p] <= x1 && y[p] >= y0 && y[p] <= y1 && p != a && p != c
+                    && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                    && area(prev[p], p, next[p]) >= 0;
+        }
+
+        /**
+         * Removes duplicate and collinear points between start and end (the whole ring if end is
+         * -1) and returns a node still on the ring.
+         */
+        private int filterPoints(int start, int end) {
+            if (start < 0) {
+                return start;
+            }
+            if (end < 0) {
+                end = start;
+            }
+            int p = start;
+            boolean again;
+            do {
+                again = false;
+                if (equal(p, next[p]) || area(prev[p], p, next[p]) == 0) {
+                    int before = prev[p];
+                    removeNode(p);
+                    p = end = before;
+                    if (p == next[p]) {
+                        break;
+                    }
+                    again = true;
+                } else {
+                    p = next[p];
+                }
+            } while (again || p != end);
+            return end;
+        }
+
+        /**
+         * Clips the two triangles around every small self-intersection (a, p, p.next, b).
+         */
+        private int cureLocalIntersections(int start) {
+            int p = start;
+            do {
+                int a = prev[p];
+                int b = next[next[p]];
+                if (!equal(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+                    addTriangle(vertex[a], vertex[p], vertex[b]);
+                    int pNext = next[p];
+                    removeNode(p);
+                    removeNode(pNext);
+                    p = start = b;
+                }
+                p = next[p];
+            } while (p != start);
+            return filterPoints(p, -1);
+        }
+
+        /**
+         * Last resort: split the ring along any valid diagonal and triangulate both halves.
+         */
+        private void splitEarcut(int start) {
+            int a = start;
+            do {
+                int b = next[next[a]];
+                while (b != prev[a]) {
+                    if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+                        int c = splitPolygon(a, b);
+                        a = filterPoints(a, next[a]);
+                        c = filterPoints(c, next[c]);
+                        earcutLinked(a, 0);
+                        earcutLinked(c, 0);
+                        return;
+                    }
+                    b = next[b];
+                }
+                a = next[a];
+            } while (a != start);
+        }
+
+        private void indexCurve(int start) {
+            int p = start;
+            do {
+                z[p] = zOrder(x[p], y[p]);
+                prevZ[p] = prev[p];
+                nextZ[p] = next[p];
+                p = next[p];
+            } while (p != start);
+            nextZ[prevZ[p]] = -1;
+            prevZ[p] = -1;
+            sortLinked(p);
+        }
+
+        /**
+         * Bottom-up merge sort of the z-order list.
+         */
+        private void sortLinked(int list) {
+            int inSize = 1;
+            int numMerges;
+            do {
+                int p = list;
+                list = -1;
+                int tail = -1;
+                numMerges = 0;
+                while (p >= 0) {
+                    numMerges++;
+                    int q = p;
+                    int pSize = 0;
+                    for (int i = 0; i < inSize; i++) {
+                        pSize++;
+                        q = nextZ[q];
+                        if (q < 0) {
+                            break;
+                        }
+                    }
+                    int qSize = inSize;
+                    while (pSize > 0 || (qSize > 0 && q >= 0)) {
+                        int e;
+                        if (pSize != 0 && (qSize == 0 || q < 0 || z[p] <= z[q])) {
+                            e = p;
+                            p = nextZ[p];
+                            pSize--;
+                        } else {
+                            e = q;
+                            q = nextZ[q];
+                            qSize--;
+                        }
+                        if (tail >= 0) {
+                            nextZ[tail] = e;
+                        } else {
+                            list = e;
+                        }
+                        prevZ[e] = tail;
+                        tail = e;
+                    }
+                    p = q;
+                }
+                nextZ[tail] = -1;
+                inSize *= 2;
+            } while (numMerges > 1);
+        }
+
+        /**
+         * Morton code of a point, from coordinates scaled to 15 bits.
+         */
+        private int zOrder(double px, double py) {
+            int ix = (int) ((px - minX) * invSize);
+            int iy = (int) ((py - minY) * invSize);
+            ix = (ix | (ix << 8)) & 0x00FF00FF;
+            ix = (ix | (ix << 4)) & 0x0F0F0F0F;
+            ix = (ix | (ix << 2)) & 0x33333333;
+            ix = (ix | (ix << 1)) & 0x55555555;
+            iy = (iy | (iy << 8)) & 0x00FF00FF;
+            iy = (iy | (iy << 4)) & 0x0F0F0F0F;
+            iy = (iy | (iy << 2)) & 0x33333333;
+            iy = (iy | (iy << 1)) & 0x55555555;
+            return ix | (iy << 1);
+        }
+
+        private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+                                               double px, double py) {
+            return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                    && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                    && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+        }
+
+        private boolean isValidDiagonal(int a, int b) {
+            return vertex[next[a]] != vertex[b] && vertex[prev[a]] != vertex[b] && !intersectsPolygon(a, b)
+                    && (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                    && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0)
+                    || equal(a, b) && area(prev[a], a, next[a]) > 0 && area(prev[b], b, next[b]) > 0);
+        }
+
+        /**
+         * Twice the signed area of the triangle; negative for a counter-clockwise turn.
+         */
+        private double area(int p, int q, int r) {
+            return (y[q] - y[p]) * (x[r] - x[q]) - (x[q] - x[p]) * (y[r] - y[q]);
+        }
+
+        private boolean equal(int p, int q) {
+            return x[p] == x[q] && y[p] == y[q];
+        }
+
+        private boolean intersects(int p1, int q1, int p2, int q2) {
+            int o1 = sign(area(p1, q1, p2));
+            int o2 = sign(area(p1, q1, q2));
+            int o3 = sign(area(p2, q2, p1));
+            int o4 = sign(area(p2, q2, q1));
+            if (o1 != o2 && o3 != o4) {
+                return true;
+            }
+            return o1 == 0 && onSegment(p1, p2, q1)
+                    || o2 == 0 && onSegment(p1, q2, q1)
+                    || o3 == 0 && onSegment(p2, p1, q2)
+                    || o4 == 0 && onSegment(p2, q1, q2);
+        }
+
+        private boolean onSegment(int p, int q, int r) {
+            return x[q] <= Math.max(x[p], x[r]) && x[q] >= Math.min(x[p], x[r])
+                    && y[q] <= Math.max(y[p], y[r]) && y[q] >= Math.min(y[p], y[r]);
+        }
+
+        private static int sign(double value) {
+            return value > 0 ? 1 : value < 0 ? -1 : 0;
+        }
+
+        private boolean intersectsPolygon(int a, int b) {
+            int p = a;
+            do {
+                if (vertex[p] != vertex[a] && vertex[next[p]] != vertex[a] && vertex[p] != vertex[b]
+                        && vertex[next[p]] != vertex[b] && intersects(p, next[p], a, b)) {
+                    return true;
+                }
+                p = next[p];
+            } while (p != a);
+            return false;
+        }
+
+        private boolean locallyInside(int a, int b) {
+            return area(prev[a], a, next[a]) < 0
+                    ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0
+                    : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+        }
+
+        private boolean middleInside(int a, int b) {
+            int p = a;
+            boolean inside = false;
+            double px = (x[a] + x[b]) / 2;
+            double py = (y[a] + y[b]) / 2;
+            do {
+                int q = next[p];
+                if (((y[p] > py) != (y[q] > py)) && y[q] != y[p]
+                        && px < (x[q] - x[p]) * (py - y[p]) / (y[q] - y[p]) + x[p]) {
+                    inside = !inside;
+                }
+                p = q;
+            } while (p != a);
+            return inside;
+        }
+
+        /**
+         * Links a and b with a bridge, splitting the ring in two; returns a node of the new ring.
+         */
+        private int splitPolygon(int a, int b) {
+            int a2 = newNode(vertex[a], x[a], y[a]);
+            int b2 = newNode(vertex[b], x[b], y[b]);
+            int an = next[a];
+            int bp = prev[b];
+
+            next[a] = b;
+            prev[b] = a;
+
+            next[a2] = an;
+            prev[an] = a2;
+
+            next[b2] = a2;
+            prev[a2] = b2;
+
+            next[bp] = b2;
+            prev[b2] = bp;
+            return b2;
+        }
+
+        private int insertNode(int index, double px, double py, int last) {
+            int p = newNode(index, px, py);
+            if (last < 0) {
+                prev[p] = p;
+                next[p] = p;
+            } else {
+                next[p] = next[last];
+                prev[p] = last;
+                prev[next[last]] = p;
+                next[last] = p;
+            }
+            return p;
+        }
+
+        private void removeNode(int p) {
+            prev[next[p]] = prev[p];
+            next[prev[p]] = next[p];
+            if (prevZ[p] >= 0) {
+                nextZ[prevZ[p]] = nextZ[p];
+            }
+            if (nextZ[p] >= 0) {
+                prevZ[nextZ[p]] = prevZ[p];
+            }
+        }
+
+        private int newNode(int index, double px, double py) {
+            if (nodeCount == x.length) {
+                int capacity = nodeCount * 2;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                vertex = Arrays.copyOf(vertex, capacity);
+                prev = Arrays.copyOf(prev, capacity);
+                next = Arrays.copyOf(next, capacity);
+                z = Arrays.copyOf(z, capacity);
+                prevZ = Arrays.copyOf(prevZ, capacity);
+                nextZ = Arrays.copyOf(nextZ, capacity);
+            }
+            int p = nodeCount++;
+            vertex[p] = index;
+            x[p] = px;
+            y[p] = py;
+            z[p] = 0;
+            prevZ[p] = -1;
+            nextZ[p] = -1;
+            return p;
+        }
+
+        private void addTriangle(int a, int b, int c) {
+            if (triangleCount + 3 > triangles.length) {
+                triangles = Arrays.copyOf(triangles, triangles.length * 2);
+            }
+            triangles[triangleCount++] = a;
+            triangles[triangleCount++] = b;
+            triangles[triangleCount++] = c;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raster area counter: the play field as a grid of square cells packed into a bitset, one bit per
+ * cell, set while the cell is still open (not yet captured). It runs alongside the vector
+ * {@link Perimeter}, which still drives movement, collisions and the outline; the grid only counts
+ * the open area for the score, and can drive a reveal mask day field so the area shown is the one
+ * counted. It also takes the cells under each path, so it may count up to a band of one cell along
+ * every path more than the vector capture.
+ * <p>
+ * A capture claims the cells under the drawing path, then flood fills the open area from both
+ * sides of the path at the same time, one span per step. The first fill to finish is the smaller
+ * region; if it does not hold the enemy it is captured, otherwise the other fill runs to completion
+ * and is captured instead. The grid's share of a capture is thus bounded by the captured area, on
+ * top of the vector capture. A path that does not cut the open area in two claims nothing. Cells
+ * captured are accumulated into a dirty rectangle in grid coordinates for consumers that mirror
+ * the grid.
+ */
+public final class GridTerritory {
+
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    private final long[] open;
+    private int openCount;
+
+    // Per-capture fill state, kept between captures to avoid reallocating.
+    private final long[] markA;
+    private final long[] markB;
+    private final SpanFill fillA;
+    private final SpanFill fillB;
+    // Cells claimed by the path of the capture in progress, given back if it closes nothing off.
+    private int[] pathCells = new int[64];
+    private int pathCellCount;
+
+    private int dirtyMinColumn = Integer.MAX_VALUE;
+    private int dirtyMinRow = Integer.MAX_VALUE;
+    private int dirtyMaxColumn = -1;
+    private int dirtyMaxRow = -1;
+
+    /**
+     * Creates a grid covering {@code [0, width) x [0, height)} with the inside of the given
+     * perimeter open.
+     */
+    public GridTerritory(Perimeter perimeter, float width, float height, float cellSize) {
+        if (cellSize <= 0f) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        int words = (columns * rows + 63) >>> 6;
+        this.open = new long[words];
+        this.markA = new long[words];
+        this.markB = new long[words];
+        this.fillA = new SpanFill(markA);
+        this.fillB = new SpanFill(markB);
+        rasterize(perimeter);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Whether the cell containing the point is still open.
+     */
+    public boolean contains(float x, float y) {
+        int column = (int) Math.floor(x / cellSize);
+        int row = (int) Math.floor(y / cellSize);
+        return column >= 0 && column < columns && row >= 0 && row < rows && isOpen(row * columns + column);
+    }
+
+    public boolean contains(Vector3f point) {
+        return point != null && contains(point.x, point.y);
+    }
+
+    public boolean isOpen(int column, int row) {
+        return column >= 0 && column < columns && row >= 0 && row < rows && isOpen(row * columns + column);
+    }
+
+    public int getOpenCellCount() {
+        return openCount;
+    }
+
+    /**
+     * Open area in world units, maintained incrementally.
+     */
+    public double getOpenArea() {
+        return (double) openCount * cellSize * cellSize;
+    }
+
+    /**
+     * Claims the region cut off by the path that does not hold the enemy, together with the cells
+     * under the path. If the path does not separate two regions, nothing is claimed. Returns the
+     * number of cells captured.
+     */
+    public int capture(List<Vector3f> path, Vector3f enemyPosition) {
+        if (path == null || path.size() < 2) {
+            return 0;
+        }
+        int before = openCount;
+        pathCellCount = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Vector3f a = path.get(i);
+            Vector3f b = path.get(i + 1);
+            claimSegment(a.x, a.y, b.x, b.y);
+        }
+
+        int seedA = -1, seedB = -1;
+        for (int i = 0; i + 1 < path.size() && (seedA < 0 || seedB < 0); i++) {
+            Vector3f a = path.get(i);
+            Vector3f b = path.get(i + 1);
+            float dx = b.x - a.x;
+            float dy = b.y - a.y;
+            float length = (float) Math.sqrt(dx * dx + dy * dy);
+            if (length < cellSize) {
+                continue;
+            }
+            // One cell to either side of the segment's midpoint.
+            float mx = (a.x + b.x) / 2f;
+            float my = (a.y + b.y) / 2f;
+            float nx = -dy / length * cellSize;
+            float ny = dx / length * cellSize;
+            seedA = openCell(mx + nx, my + ny);
+            seedB = openCell(mx - nx, my - ny);
+        }
+
+        SpanFill captured = null;
+        if (seedA >= 0 && seedB >= 0) {
+            int enemyCell = cellIndex(enemyPosition.x, enemyPosition.y);
+            captured = race(seedA, seedB, enemyCell);
+        }
+        if (captured != null) {
+            captured.clearFilled();
+            for (int i = 0; i < pathCellCount; i++) {
+                int column = pathCells[i] % columns;
+                markDirty(column, pathCells[i] / columns, column);
+            }
+        } else {
+            for (int i = 0; i < pathCellCount; i++) {
+                int index = pathCells[i];
+                open[index >>> 6] |= 1L << index;
+            }
+            openCount += pathCellCount;
+        }
+        pathCellCount = 0;
+        fillA.reset();
+        fillB.reset();
+        return before - openCount;
+    }
+
+    /**
+     * Returns the region that should be captured, or null if the path did not separate the seeds.
+     */
+    private SpanFill race(int seedA, int seedB, int enemyCell) {
+        fillA.start(seedA, markB);
+        fillB.start(seedB, markA);
+        while (true) {
+            boolean aRunning = fillA.step();
+            boolean bRunning = fillB.step();
+            if (fillA.connected || fillB.connected) {
+                return null;
+            }
+            if (!aRunning || !bRunning) {
+                SpanFill finished = !aRunning ? fillA : fillB;
+                SpanFill other = finished == fillA ? fillB : fillA;
+                if (enemyCell < 0 || !isMarked(finished.mark, enemyCell)) {
+                    return finished;
+                }
+                while (other.step()) {
+                    if (other.connected) {
+                        return null;
+                    }
+                }
+                return other.connected ? null : other;
+            }
+        }
+    }
+
+    public boolean hasDirtyRegion() {
+        return dirtyMaxColumn >= 0;
+    }
+
+    public int getDirtyMinColumn() {
+        return dirtyMinColumn;
+    }
+
+    public int getDirtyMinRow() {
+        return dirtyMinRow;
+    }
+
+    public int getDirtyMaxColumn() {
+        return dirtyMaxColumn;
+    }
+
+    public int getDirtyMaxRow() {
+        return dirtyMaxRow;
+    }
+
+    public void clearDirtyRegion() {
+        dirtyMinColumn = Integer.MAX_VALUE;
+        dirtyMinRow = Integer.MAX_VALUE;
+        dirtyMaxColumn = -1;
+        dirtyMaxRow = -1;
+    }
+
+    private void rasterize(Perimeter perimeter) {
+        int n = perimeter.size();
+        float[] crossings = new float[n];
+        for (int row = 0; row < rows; row++) {
+            float y = (row + 0.5f) * cellSize;
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                int j = i + 1 == n ? 0 : i + 1;
+                float ay = perimeter.y(i), by = perimeter.y(j);
+                if ((ay > y) != (by > y)) {
+                    float ax = perimeter.x(i), bx = perimeter.x(j);
+                    crossings[count++] = ax + (bx - ax) * (y - ay) / (by - ay);
+                }
+            }
+            Arrays.sort(crossings, 0, count);
+            for (int k = 0; k + 1 < count; k += 2) {
+                int c0 = Math.max(0, (int) Math.ceil(crossings[k] / cellSize - 0.5f));
+                int c1 = Math.min(columns - 1, (int) Math.floor(crossings[k + 1] / cellSize - 0.5f));
+                for (int c = c0; c <= c1; c++) {
+                    int index = row * columns + c;
+                    if (!isOpen(index)) {
+                        open[index >>> 6] |= 1L << index;
+                        openCount++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims every cell the segment passes through.
+     */
+    private void claimSegment(float ax, float ay, float bx, float by) {
+        float length = (float) Math.hypot(bx - ax, by - ay);
+        // Half-cell steps never skip a cell the segment crosses through its interior.
+        int steps = Math.max(1, (int) Math.ceil(length / (cellSize * 0.5f)));
+        for (int s = 0; s <= steps; s++) {
+            float t = (float) s / steps;
+            int index = cellIndex(ax + (bx - ax) * t, ay + (by - ay) * t);
+            if (index >= 0) {
+                claim(index);
+            }
+        }
+    }
+
+    private void claim(int index) {
+        if (isOpen(index)) {
+            open[index >>> 6] &= ~(1L << index);
+            openCount--;
+            if (pathCellCount == pathCells.length) {
+                pathCells = Arrays.copyOf(pathCells, pathCellCount * 2);
+            }
+            pathCells[pathCellCount++] = index;
+        }
+    }
+
+    private void markDirty(int c0, int row, int c1) {
+        dirtyMinColumn = Math.min(dirtyMinColumn, c0);
+        dirtyMaxColumn = Math.max(dirtyMaxColumn, c1);
+        dirtyMinRow = Math.min(dirtyMinRow, row);
+        dirtyMaxRow = Math.max(dirtyMaxRow, row);
+    }
+
+    private int openCell(float x, float y) {
+        int index = cellIndex(x, y);
+        return index >= 0 && isOpen(index) ? index : -1;
+    }
+
+    private int cellIndex(float x, float y) {
+        int column = (int) Math.floor(x / cellSize);
+        int row = (int) Math.floor(y / cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return -1;
+        }
+        return row * columns + column;
+    }
+
+    private boolean isOpen(int index) {
+        return (open[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static boolean isMarked(long[] mark, int index) {
+        return (mark[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Incremental scanline flood fill over open cells. Each {@link #step()} fills one horizontal
+     * span and queues the rows above and below it. Filled spans are recorded so they can be
+     * cleared, and the mark bitset reset, in time proportional to the filled area.
+     */
+    private final class SpanFill {
+        final long[] mark;
+        private long[] otherMark;
+        private int[] stack = new int[64];
+        private int stackSize;
+        // Filled spans as (row, c0, c1) triples.
+        private int[] spans = new int[192];
+        private int spanCount;
+        boolean connected;
+
+        SpanFill(long[] mark) {
+            this.mark = mark;
+        }
+
+        void start(int seed, long[] otherMark) {
+            this.otherMark = otherMark;
+            this.connected = false;
+            this.stackSize = 0;
+            this.spanCount = 0;
+            push(seed);
+        }
+
+        /**
+         * Fills the next span. Returns false once the fill is complete.
+         */
+        boolean step() {
+            while (stackSize > 0) {
+                int index = stack[--stackSize];
+                if (!isOpen(index) || isMarked(mark, index)) {
+                    continue;
+                }
+                int row = index / columns;
+                int rowStart = row * columns;
+                int c0 = index - rowStart;
+                int c1 = c0;
+                while (c0 > 0 && fillable(rowStart + c0 - 1)) {
+                    c0--;
+                }
+                while (c1 < columns - 1 && fillable(rowStart + c1 + 1)) {
+                    c1++;
+                }
+                for (int c = c0; c <= c1; c++) {
+                    if (isMarked(otherMark, rowStart + c)) {
+                        // Both fills reached the same region, so the path did not cut it in two.
+                        connected = true;
+                        return false;
+                    }
+                }
+                for (int c = c0; c <= c1; c++) {
+                    int cell = rowStart + c;
+                    mark[cell >>> 6] |= 1L << cell;
+                }
+                recordSpan(row, c0, c1);
+                if (row > 0) {
+                    queueRow(row - 1, c0, c1);
+                }
+                if (row < rows - 1) {
+                    queueRow(row + 1, c0, c1);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private boolean fillable(int index) {
+            return isOpen(index) && !isMarked(mark, index);
+        }
+
+        private void queueRow(int row, int c0, int c1) {
+            int rowStart = row * columns;
+            boolean inRun = false;
+            for (int c = c0; c <= c1; c++) {
+                boolean fillable = fillable(rowStart + c);
+                if (fillable && !inRun) {
+                    push(rowStart + c);
+                }
+                inRun = fillable;
+            }
+        }
+
+        private void push(int index) {
+            if (stackSize == stack.length) {
+                stack = Arrays.copyOf(stack, stackSize * 2);
+            }
+            stack[stackSize++] = index;
+        }
+
+        private void recordSpan(int row, int c0, int c1) {
+            if (spanCount + 3 > spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            spans[spanCount++] = row;
+            spans[spanCount++] = c0;
+            spans[spanCount++] = c1;
+        }
+
+        void clearFilled() {
+            for (int k = 0; k < spanCount; k += 3) {
+                int row = spans[k];
+                int c0 = spans[k + 1];
+                int c1 = spans[k + 2];
+                int rowStart = row * columns;
+                for (int c = c0; c <= c1; c++) {
+                    int cell = rowStart + c;
+                    open[cell >>> 6] &= ~(1L << cell);
+                }
+                openCount -= c1 - c0 + 1;
+                markDirty(c0, row, c1);
+            }
+        }
+
+        void reset() {
+            for (int k = 0; k < spanCount; k += 3) {
+                int rowStart = spans[k] * columns;
+                for (int c = spans[k + 1]; c <= spans[k + 2]; c++) {
+                    int cell = rowStart + c;
+                    mark[cell >>> 6] &= ~(1L << cell);
+                }
+            }
+            spanCount = 0;
+            stackSize = 0;
+            connected = false;
+        }
+    }
+}
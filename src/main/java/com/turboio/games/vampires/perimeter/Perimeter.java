@@ -1,128 +1,258 @@
 package com.turboio.games.vampires.perimeter;
 
 import com.jme3.math.Vector3f;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.operation.distance.IndexedFacetDistance;
 
-import java.awt.geom.Path2D;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Represents the perimeter of the safe area. This is a pure data class that holds the vertices
- * and provides a method for point-in-polygon tests.
+ * and provides a method for point-in-polygon tests, backed by a {@link ScanlineEdgeTable} built
+ * in the constructor.
+ * <p>
+ * Vertices are stored counter-clockwise as packed {@code x, y} pairs and read through
+ * {@link #x(int)}, {@link #y(int)} and {@link #size()}. Since a perimeter is immutable, the JTS
+ * structures used by {@link PerimeterManager} queries and the movement indexes are built lazily
+ * on first use and then shared by every caller.
  */
 public class Perimeter {
 
+    static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE));
+
     private static final float EPSILON = 0.0005f;
 
-    private final List<Vector3f> vertices;
-    private final Path2D.Float path;
+    private final float[] coords;
+    private final int size;
+    private final double area;
+    private final ScanlineEdgeTable edgeTable;
+
+    private volatile Polygon jtsPolygon;
+    private volatile Geometry jtsBoundary;
+    private volatile PreparedGeometry preparedBoundary;
+    private volatile IndexedFacetDistance boundaryDistance;
+    private volatile PerimeterEdgeIndex edgeIndex;
+    private volatile PerimeterRail rail;
 
     public Perimeter(List<Vector3f> vertices) {
-        requireNonNull(vertices, "vertices");
-        List<Vector3f> sanitized = sanitizeVertices(vertices);
-        if (sanitized.size() < 3) {
+        this(toCoordinates(requireNonNull(vertices, "vertices")));
+    }
+
+    private Perimeter(float[] xy) {
+        this(xy, xy.length / 2);
+    }
+
+    /**
+     * Creates a perimeter from packed {@code x, y} pairs. The array is not retained.
+     */
+    public Perimeter(float[] xy, int count) {
+        requireNonNull(xy, "xy");
+        this.coords = sanitizeCoordinates(xy, count);
+        this.size = coords.length / 2;
+        if (size < 3) {
             throw new IllegalArgumentException("Perimeter requires at least 3 distinct vertices");
         }
-        this.vertices = Collections.unmodifiableList(sanitized);
-        this.path = buildPath(this.vertices);
+        double signedArea = computeSignedArea(coords, size);
+        if (signedArea < 0) {
+            reverse(coords, size);
+        }
+        this.area = Math.abs(signedArea);
+        this.edgeTable = new ScanlineEdgeTable(this, EPSILON);
     }
 
     public boolean contains(Vector3f point) {
         if (point == null) {
             return false;
         }
-        if (path.contains(point.x, point.y)) {
-            return true;
-        }
-        return isOnBoundary(point);
+        return edgeTable.contains(point.x, point.y);
+    }
+
+    public boolean contains(float x, float y) {
+        return edgeTable.contains(x, y);
     }
 
-    public List<Vector3f> getVertices() {
-        return vertices;
+    public int size() {
+        return size;
     }
 
+    public float x(int i) {
+        return coords[2 * i];
+    }
+
+    public float y(int i) {
+        return coords[2 * i + 1];
+    }
+
+    public Vector3f getVertex(int i, Vector3f store) {
+        return store.set(coords[2 * i], coords[2 * i + 1], 0f);
+    }
+
+    /**
+     * Returns a copy of the vertices as packed {@code x, y} pairs.
+     */
+    public float[] copyCoordinates() {
+        return coords.clone();
+    }
+
+    /**
+     * Enclosed area, computed once when the perimeter is built.
+     */
     public double getArea() {
-        return Math.abs(computeSignedArea(vertices));
+        return area;
     }
 
-    private List<Vector3f> sanitizeVertices(List<Vector3f> input) {
-        List<Vector3f> result = new ArrayList<>();
-        Vector3f previous = null;
-        for (Vector3f vertex : input) {
-            if (vertex == null) {
-                continue;
-            }
-            Vector3f copy = new Vector3f(vertex.x, vertex.y, 0f);
-            if (previous != null && areClose(previous, copy)) {
-                continue;
+    /**
+     * Spatial index over the perimeter edges, built on first use.
+     */
+    public PerimeterEdgeIndex getEdgeIndex() {
+        PerimeterEdgeIndex index = edgeIndex;
+        if (index == null) {
+            index = new PerimeterEdgeIndex(this);
+            edgeIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Arc-length parameterization used for movement along the boundary, built on first use.
+     */
+    public PerimeterRail getRail() {
+        PerimeterRail r = rail;
+        if (r == null) {
+            r = new PerimeterRail(this);
+            rail = r;
+        }
+        return r;
+    }
+
+    Polygon getJtsPolygon() {
+        Polygon polygon = jtsPolygon;
+        if (polygon == null) {
+            Coordinate[] ring = new Coordinate[size + 1]; // +1 to close the ring
+            for (int i = 0; i < size; i++) {
+                ring[i] = new Coordinate(coords[2 * i], coords[2 * i + 1]);
             }
-            result.add(copy);
-            previous = copy;
+            ring[size] = new Coordinate(ring[0]);
+            LinearRing linearRing = GEOMETRY_FACTORY.createLinearRing(ring);
+            polygon = GEOMETRY_FACTORY.createPolygon(linearRing);
+            jtsPolygon = polygon;
+        }
+        return polygon;
+    }
+
+    Geometry getJtsBoundary() {
+        Geometry boundary = jtsBoundary;
+        if (boundary == null) {
+            boundary = getJtsPolygon().getBoundary();
+            jtsBoundary = boundary;
         }
-        if (!result.isEmpty() && areClose(result.get(0), result.get(result.size() - 1))) {
-            result.remove(result.size() - 1);
+        return boundary;
+    }
+
+    Envelope getEnvelope() {
+        return getJtsPolygon().getEnvelopeInternal();
+    }
+
+    PreparedGeometry getPreparedBoundary() {
+        PreparedGeometry prepared = preparedBoundary;
+        if (prepared == null) {
+            prepared = PreparedGeometryFactory.prepare(getJtsBoundary());
+            preparedBoundary = prepared;
         }
-        if (computeSignedArea(result) < 0) {
-            Collections.reverse(result);
+        return prepared;
+    }
+
+    IndexedFacetDistance getBoundaryDistance() {
+        IndexedFacetDistance distance = boundaryDistance;
+        if (distance == null) {
+            distance = new IndexedFacetDistance(getJtsBoundary());
+            boundaryDistance = distance;
         }
-        return result;
-    }
-
-    private Path2D.Float buildPath(List<Vector3f> verts) {
-        Path2D.Float path2D = new Path2D.Float();
-        boolean first = true;
-        for (Vector3f vertex : verts) {
-            if (first) {
-                path2D.moveTo(vertex.x, vertex.y);
-                first = false;
-            } else {
-                path2D.lineTo(vertex.x, vertex.y);
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Perimeter[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
             }
+            sb.append('(').append(coords[2 * i]).append(", ").append(coords[2 * i + 1]).append(')');
         }
-        path2D.closePath();
-        return path2D;
+        return sb.append(']').toString();
     }
 
-    private boolean isOnBoundary(Vector3f point) {
-        int n = vertices.size();
-        for (int i = 0; i < n; i++) {
-            Vector3f a = vertices.get(i);
-            Vector3f b = vertices.get((i + 1) % n);
-            if (isPointOnSegment(point, a, b)) {
-                return true;
+    private static float[] toCoordinates(List<Vector3f> vertices) {
+        float[] xy = new float[vertices.size() * 2];
+        int count = 0;
+        for (Vector3f vertex : vertices) {
+            if (vertex == null) {
+                continue;
             }
+            xy[2 * count] = vertex.x;
+            xy[2 * count + 1] = vertex.y;
+            count++;
         }
-        return false;
+        return count * 2 == xy.length ? xy : Arrays.copyOf(xy, count * 2);
     }
 
-    private boolean isPointOnSegment(Vector3f p, Vector3f a, Vector3f b) {
-        float cross = (p.y - a.y) * (b.x - a.x) - (p.x - a.x) * (b.y - a.y);
-        if (Math.abs(cross) > EPSILON) {
-            return false;
+    /**
+     * Drops consecutive near-duplicate points and the closing duplicate.
+     */
+    private static float[] sanitizeCoordinates(float[] input, int count) {
+        float[] result = new float[count * 2];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            float x = input[2 * i];
+            float y = input[2 * i + 1];
+            if (n > 0 && areClose(result[2 * n - 2], result[2 * n - 1], x, y)) {
+                continue;
+            }
+            result[2 * n] = x;
+            result[2 * n + 1] = y;
+            n++;
         }
-        float dot = (p.x - a.x) * (b.x - a.x) + (p.y - a.y) * (b.y - a.y);
-        if (dot < -EPSILON) {
-            return false;
+        if (n > 1 && areClose(result[0], result[1], result[2 * n - 2], result[2 * n - 1])) {
+            n--;
+        }
+        return n * 2 == result.length ? result : Arrays.copyOf(result, n * 2);
+    }
+
+    private static void reverse(float[] xy, int n) {
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            float x = xy[2 * i];
+            float y = xy[2 * i + 1];
+            xy[2 * i] = xy[2 * j];
+            xy[2 * i + 1] = xy[2 * j + 1];
+            xy[2 * j] = x;
+            xy[2 * j + 1] = y;
         }
-        float squaredLength = (b.x - a.x) * (b.x - a.x) + (b.y - a.y) * (b.y - a.y);
-        return dot <= squaredLength + EPSILON;
     }
 
-    private double computeSignedArea(List<Vector3f> verts) {
+    private static double computeSignedArea(float[] xy, int n) {
         double area = 0.0;
-        int n = verts.size();
         for (int i = 0; i < n; i++) {
-            Vector3f p1 = verts.get(i);
-            Vector3f p2 = verts.get((i + 1) % n);
-            area += (double) p1.x * p2.y - (double) p2.x * p1.y;
+            int j = i + 1 == n ? 0 : i + 1;
+            area += (double) xy[2 * i] * xy[2 * j + 1] - (double) xy[2 * j] * xy[2 * i + 1];
         }
         return area / 2.0;
     }
 
-    private boolean areClose(Vector3f a, Vector3f b) {
-        return a.distanceSquared(b) <= EPSILON * EPSILON;
+    private static boolean areClose(float ax, float ay, float bx, float by) {
+        float dx = ax - bx;
+        float dy = ay - by;
+        return dx * dx + dy * dy <= EPSILON * EPSILON;
     }
 }
@@ -0,0 +1,206 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * Uniform grid over the edges of a perimeter, answering "is any edge closer than r to p" and
+ * "which edge is nearest to p" without scanning every edge. Edge {@code i} runs from vertex
+ * {@code i} to vertex {@code i + 1} (wrapping). Instances are immutable and built once per
+ * {@link Perimeter}.
+ */
+public final class PerimeterEdgeIndex {
+
+    private static final int MAX_CELLS_PER_AXIS = 256;
+
+    private final int edgeCount;
+    private final float[] ax;
+    private final float[] ay;
+    private final float[] bx;
+    private final float[] by;
+
+    private final float originX;
+    private final float originY;
+    private final float cellSize;
+    private final int columns;
+    private final int rows;
+    // Compressed cell -> edge lists: edges of cell c are cellEdges[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] cellEdges;
+
+    PerimeterEdgeIndex(Perimeter perimeter) {
+        int n = perimeter.size();
+        this.edgeCount = n;
+        this.ax = new float[n];
+        this.ay = new float[n];
+        this.bx = new float[n];
+        this.by = new float[n];
+
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        double totalLength = 0;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            ax[i] = perimeter.x(i);
+            ay[i] = perimeter.y(i);
+            bx[i] = perimeter.x(j);
+            by[i] = perimeter.y(j);
+            minX = Math.min(minX, ax[i]);
+            minY = Math.min(minY, ay[i]);
+            maxX = Math.max(maxX, ax[i]);
+            maxY = Math.max(maxY, ay[i]);
+            totalLength += Math.hypot(bx[i] - ax[i], by[i] - ay[i]);
+        }
+
+        float width = Math.max(maxX - minX, 1f);
+        float height = Math.max(maxY - minY, 1f);
+        float size = (float) Math.max(totalLength / n, Math.sqrt(width * height / n));
+        size = Math.max(size, Math.max(width, height) / MAX_CELLS_PER_AXIS);
+        this.cellSize = Math.max(size, 1f);
+        this.originX = minX;
+        this.originY = minY;
+        this.columns = (int) (width / cellSize) + 1;
+        this.rows = (int) (height / cellSize) + 1;
+
+        int cellCount = columns * rows;
+        int[] counts = new int[cellCount + 1];
+        for (int i = 0; i < n; i++) {
+            int c0 = column(Math.min(ax[i], bx[i]));
+            int c1 = column(Math.max(ax[i], bx[i]));
+            int r0 = row(Math.min(ay[i], by[i]));
+            int r1 = row(Math.max(ay[i], by[i]));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    counts[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            counts[c + 1] += counts[c];
+        }
+        this.cellStart = counts.clone();
+        this.cellEdges = new int[counts[cellCount]];
+        for (int i = 0; i < n; i++) {
+            int c0 = column(Math.min(ax[i], bx[i]));
+            int c1 = column(Math.max(ax[i], bx[i]));
+            int r0 = row(Math.min(ay[i], by[i]));
+            int r1 = row(Math.max(ay[i], by[i]));
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellEdges[counts[r * columns + c]++] = i;
+                }
+            }
+        }
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns true if any edge is strictly closer than the given radius to the point.
+     */
+    public boolean anyEdgeWithin(float x, float y, float radius) {
+        float radiusSquared = radius * radius;
+        int c0 = column(x - radius);
+        int c1 = column(x + radius);
+        int r0 = row(y - radius);
+        int r1 = row(y + radius);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    if (distanceSquared(cellEdges[k], x, y) < radiusSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the edge nearest to the point that is strictly closer than
+     * {@code maxDistance}, or -1 if there is none. Pass {@link Float#POSITIVE_INFINITY} for an
+     * unbounded search.
+     */
+    public int nearestEdge(float x, float y, float maxDistance) {
+        int centerColumn = column(x);
+        int centerRow = row(y);
+        int maxRing = Math.max(columns, rows);
+        float bestDistanceSquared = maxDistance == Float.POSITIVE_INFINITY ? Float.MAX_VALUE : maxDistance * maxDistance;
+        int best = -1;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Cells in this ring are at least (ring - 1) cells away from the (clamped) query point.
+            float lowerBound = Math.max(0, ring - 1) * cellSize;
+            if (lowerBound * lowerBound >= bestDistanceSquared) {
+                break;
+            }
+            int r0 = centerRow - ring;
+            int r1 = centerRow + ring;
+            int c0 = centerColumn - ring;
+            int c1 = centerColumn + ring;
+            for (int r = Math.max(r0, 0); r <= Math.min(r1, rows - 1); r++) {
+                boolean edgeRow = r == r0 || r == r1;
+                int step = edgeRow ? 1 : c1 - c0;
+                for (int c = c0; c <= c1; c += Math.max(step, 1)) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int edge = cellEdges[k];
+                        float d = distanceSquared(edge, x, y);
+                        if (d < bestDistanceSquared || (d == bestDistanceSquared && edge < best)) {
+                            bestDistanceSquared = d;
+                            best = edge;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Distance from the point to the given edge.
+     */
+    public float distanceToEdge(int edge, float x, float y) {
+        return (float) Math.sqrt(distanceSquared(edge, x, y));
+    }
+
+    /**
+     * Stores the point on the given edge closest to (x, y) in {@code store} and returns it.
+     */
+    public Vector3f closestPointOnEdge(int edge, float x, float y, Vector3f store) {
+        float t = projection(edge, x, y);
+        return store.set(ax[edge] + (bx[edge] - ax[edge]) * t, ay[edge] + (by[edge] - ay[edge]) * t, 0f);
+    }
+
+    private float distanceSquared(int edge, float x, float y) {
+        float t = projection(edge, x, y);
+        float dx = ax[edge] + (bx[edge] - ax[edge]) * t - x;
+        float dy = ay[edge] + (by[edge] - ay[edge]) * t - y;
+        return dx * dx + dy * dy;
+    }
+
+    private float projection(int edge, float x, float y) {
+        float sx = bx[edge] - ax[edge];
+        float sy = by[edge] - ay[edge];
+        float lengthSquared = sx * sx + sy * sy;
+        if (lengthSquared == 0f) {
+            return 0f;
+        }
+        return Math.max(0f, Math.min(1f, ((x - ax[edge]) * sx + (y - ay[edge]) * sy) / lengthSquared));
+    }
+
+    private int column(float x) {
+        int c = (int) Math.floor((x - originX) / cellSize);
+        return Math.max(0, Math.min(columns - 1, c));
+    }
+
+    private int row(float y) {
+        int r = (int) Math.floor((y - originY) / cellSize);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+}
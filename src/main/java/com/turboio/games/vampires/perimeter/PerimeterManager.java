@@ -1,9 +1,7 @@
 package com.turboio.games.vampires.perimeter;
 
 import com.jme3.math.Vector3f;
-import com.turboio.games.vampires.controls.PlayerControl;
 import org.locationtech.jts.geom.*;
-import org.locationtech.jts.operation.distance.DistanceOp;
 import org.locationtech.jts.operation.overlay.snap.GeometrySnapper;
 import org.locationtech.jts.operation.polygonize.Polygonizer;
 import org.locationtech.jts.operation.union.UnaryUnionOp;
@@ -11,33 +9,77 @@ import org.locationtech.jts.operation.union.UnaryUnionOp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Handles territory capture calculations using JTS computational geometry library.
- * This approach is much more robust than manual polygon manipulation.
+ * Handles territory capture calculations. Captures are split directly by {@link PolygonSplitter};
+ * the JTS snap/union/polygonize overlay is kept as a fallback for paths the splitter rejects.
  */
 public class PerimeterManager {
     
-    private static final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE));
+    private static final Logger logger = Logger.getLogger(PerimeterManager.class.getName());
+    private static final GeometryFactory geometryFactory = Perimeter.GEOMETRY_FACTORY;
+    static final float SNAP_TOLERANCE = 0.1f;
+    public static final float DEFAULT_SIMPLIFICATION_TOLERANCE = 0.5f;
+
+    private PerimeterSimplifier simplifier = new PerimeterSimplifier(DEFAULT_SIMPLIFICATION_TOLERANCE);
+
+    /**
+     * Sets how far the post-capture simplification may move the boundary. 0 keeps only the
+     * collinear-vertex merge.
+     */
+    public void setSimplificationTolerance(float tolerance) {
+        this.simplifier = new PerimeterSimplifier(tolerance);
+    }
+
+    /**
+     * Computes the perimeter left after closing the given drawing path. Only reads its arguments,
+     * so it can run on a worker thread as long as the path is not modified meanwhile.
+     */
+    public Perimeter calculateNewPerimeter(Perimeter oldPerimeter, List<Vector3f> drawingPath, Vector3f enemyPosition) {
+        return calculateCapture(oldPerimeter, drawingPath, enemyPosition).getPerimeter();
+    }
 
-    public Perimeter calculateNewPerimeter(Perimeter oldPerimeter, PlayerControl control, Vector3f enemyPosition) {
-        List<Vector3f> drawingPath = control.getDrawingPath();
+    /**
+     * Like {@link #calculateNewPerimeter(Perimeter, List, Vector3f)}, but also reports the captured
+     * area. When the splitter handles the capture, that area comes from the path and the replaced
+     * boundary chain alone, so it costs O(path + chain) instead of a pass over the new perimeter.
+     * The returned result has no meshes yet.
+     */
+    public CaptureResult calculateCapture(Perimeter oldPerimeter, List<Vector3f> drawingPath, Vector3f enemyPosition) {
         if (drawingPath == null || drawingPath.size() < 2) {
-            return oldPerimeter; // No change
+            return new CaptureResult(oldPerimeter, null, 0.0, null); // No change
         }
 
-        System.out.println("--- JTS PerimeterManager ---");
-        System.out.println("Old perimeter has " + oldPerimeter.getVertices().size() + " vertices: " + oldPerimeter.getVertices());
-        System.out.println("Drawing path has " + drawingPath.size() + " vertices: " + drawingPath);
+        PolygonSplitter.Split split = PolygonSplitter.split(oldPerimeter, drawingPath, SNAP_TOLERANCE);
+        if (split != null) {
+            float[] kept = split.select(enemyPosition);
+            if (kept != null) {
+                logger.fine(() -> "Split perimeter of " + oldPerimeter.size() + " vertices along "
+                        + drawingPath.size() + " path vertices into areas " + split.getFirstArea() + " / " + split.getSecondArea());
+                return new CaptureResult(createPerimeter(kept), null, split.getCapturedArea(kept),
+                        new float[][]{split.getCaptured(kept)});
+            }
+        }
+        Perimeter newPerimeter = calculateNewPerimeterWithOverlay(oldPerimeter, drawingPath, enemyPosition);
+        // No captured ring to hand; the old ring with the new one cut out of it is the same region.
+        return new CaptureResult(newPerimeter, null, oldPerimeter.getArea() - newPerimeter.getArea(),
+                new float[][]{oldPerimeter.copyCoordinates(), newPerimeter.copyCoordinates()});
+    }
+
+    private Perimeter calculateNewPerimeterWithOverlay(Perimeter oldPerimeter, List<Vector3f> drawingPath, Vector3f enemyPosition) {
+        logger.fine(() -> "--- JTS PerimeterManager ---");
+        logger.fine(() -> "Old perimeter has " + oldPerimeter.size() + " vertices: " + oldPerimeter);
+        logger.fine(() -> "Drawing path has " + drawingPath.size() + " vertices: " + drawingPath);
 
         try {
-            Polygon oldJtsPerimeter = createJTSPolygon(oldPerimeter.getVertices());
             LineString jtsDrawingPath = createJTSLineString(drawingPath);
-            Geometry perimeterBoundary = oldJtsPerimeter.getBoundary();
+            Geometry perimeterBoundary = oldPerimeter.getJtsBoundary();
 
             // Snap the drawing path and the perimeter to each other to ensure they are fully noded.
             // This is a robust way to handle precision issues where the path doesn't perfectly touch the boundary.
-            Geometry[] snappedGeoms = GeometrySnapper.snap(jtsDrawingPath, perimeterBoundary, 0.1);
+            Geometry[] snappedGeoms = GeometrySnapper.snap(jtsDrawingPath, perimeterBoundary, SNAP_TOLERANCE);
             Geometry snappedPath = snappedGeoms[0];
             Geometry snappedBoundary = snappedGeoms[1];
 
@@ -53,7 +95,7 @@ public class PerimeterManager {
             @SuppressWarnings("unchecked") // JTS library is not generic
             Collection<Polygon> newPolygons = polygonizer.getPolygons();
 
-            System.out.println("Polygonizer found " + newPolygons.size() + " new polygons.");
+            logger.fine(() -> "Polygonizer found " + newPolygons.size() + " new polygons.");
 
             // Find the correct polygon to keep (the one with the enemy)
             Point enemyPoint = geometryFactory.createPoint(new Coordinate(enemyPosition.x, enemyPosition.y));
@@ -63,9 +105,10 @@ public class PerimeterManager {
                 // More than one polygon, choose the one containing the enemy
                 int i = 0;
                 for (Polygon p : newPolygons) {
-                    double distanceToEnemy = p.getBoundary().distance(enemyPoint);
                     boolean containsEnemy = p.contains(enemyPoint);
-                    System.out.println("  Polygon " + i + ": area=" + p.getArea() + ", containsEnemy=" + containsEnemy + " (dist: " + distanceToEnemy + ")");
+                    int index = i;
+                    logger.fine(() -> "  Polygon " + index + ": area=" + p.getArea() + ", containsEnemy=" + containsEnemy
+                            + " (dist: " + p.getBoundary().distance(enemyPoint) + ")");
                     if (containsEnemy) {
                         newPerimeterPolygon = p;
                         // Don't break, let's log all polygons
@@ -73,7 +116,7 @@ public class PerimeterManager {
                     i++;
                 }
                 if (newPerimeterPolygon == null) {
-                    System.err.println("WARN: Multiple polygons found, but none contained the enemy point");
+                    logger.warning("Multiple polygons found, but none contained the enemy point");
                 }
 
             } else if (!newPolygons.isEmpty()) {
@@ -82,30 +125,32 @@ public class PerimeterManager {
             }
 
             if (newPerimeterPolygon != null) {
-                System.out.println("Selected new perimeter with area: " + newPerimeterPolygon.getArea());
-                return new Perimeter(convertJTSToVertices(newPerimeterPolygon));
+                Polygon selected = newPerimeterPolygon;
+                logger.fine(() -> "Selected new perimeter with area: " + selected.getArea());
+                return convertJTSToPerimeter(selected);
             } else {
-                System.err.println("Could not determine new perimeter, fallback to old one.");
+                logger.warning("Could not determine new perimeter, fallback to old one.");
                 return oldPerimeter;
             }
 
         } catch (Exception e) {
-            System.err.println("JTS calculation failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.log(Level.WARNING, "JTS calculation failed", e);
             return oldPerimeter; // Fallback to old perimeter
         }
     }
     
     public boolean isOnBoundary(Vector3f point, Perimeter perimeter) {
-        Polygon polygon = createJTSPolygon(perimeter.getVertices());
         Point jtsPoint = geometryFactory.createPoint(new Coordinate(point.x, point.y));
         // Use a small tolerance for boundary checks to handle floating point issues
-        return polygon.getBoundary().distance(jtsPoint) < 0.01;
+        return perimeter.getBoundaryDistance().isWithinDistance(jtsPoint, 0.01);
     }
 
     public Vector3f getIntersection(LineString line, Perimeter perimeter) {
-        Polygon polygon = createJTSPolygon(perimeter.getVertices());
-        Geometry intersection = polygon.getBoundary().intersection(line);
+        if (!perimeter.getEnvelope().intersects(line.getEnvelopeInternal())
+                || !perimeter.getPreparedBoundary().intersects(line)) {
+            return null;
+        }
+        Geometry intersection = perimeter.getJtsBoundary().intersection(line);
         if (!intersection.isEmpty()) {
             Coordinate intersectionCoord = intersection.getCoordinate();
             return new Vector3f((float) intersectionCoord.x, (float) intersectionCoord.y, 0);
@@ -114,26 +159,12 @@ public class PerimeterManager {
     }
 
     public Vector3f getClosestPointOnPerimeter(Vector3f point, Perimeter perimeter) {
-        Geometry perimeterBoundary = createJTSPolygon(perimeter.getVertices()).getBoundary();
         Point jtsPoint = geometryFactory.createPoint(new Coordinate(point.x, point.y));
-        Coordinate[] closestPoints = DistanceOp.nearestPoints(perimeterBoundary, jtsPoint);
+        Coordinate[] closestPoints = perimeter.getBoundaryDistance().nearestPoints(jtsPoint);
         Coordinate onPerimeter = closestPoints[0];
         return new Vector3f((float) onPerimeter.x, (float) onPerimeter.y, 0);
     }
 
-    private Polygon createJTSPolygon(List<Vector3f> vertices) {
-        Coordinate[] coords = new Coordinate[vertices.size() + 1]; // +1 to close the ring
-        for (int i = 0; i < vertices.size(); i++) {
-            Vector3f v = vertices.get(i);
-            coords[i] = new Coordinate(v.x, v.y);
-        }
-        // Close the ring by repeating the first coordinate
-        coords[vertices.size()] = new Coordinate(vertices.get(0).x, vertices.get(0).y);
-        
-        LinearRing ring = geometryFactory.createLinearRing(coords);
-        return geometryFactory.createPolygon(ring);
-    }
-    
     private LineString createJTSLineString(List<Vector3f> path) {
         Coordinate[] coords = new Coordinate[path.size()];
         for (int i = 0; i < path.size(); i++) {
@@ -143,15 +174,48 @@ public class PerimeterManager {
         return geometryFactory.createLineString(coords);
     }
     
-    private List<Vector3f> convertJTSToVertices(Polygon polygon) {
+    /**
+     * Builds the perimeter for a freshly captured ring, running it through the simplification
+     * stage first.
+     */
+    public Perimeter createPerimeter(float[] ring) {
+        float[] simplified = simplifier.simplify(ring);
+        if (simplified.length != ring.length) {
+            logger.fine(() -> "Simplified perimeter from " + ring.length / 2 + " to " + simplified.length / 2
+                    + " vertices (tolerance " + simplifier.getTolerance() + ")");
+        }
+        return new Perimeter(simplified, simplified.length / 2);
+    }
+
+    /**
+     * Converts an overlay result into a perimeter. Which vertex the polygonizer starts the ring at,
+     * and which way round it goes, depend on hash ordering and can differ between runs, so the ring
+     * is put into a canonical form first: counter-clockwise, starting at its lowest vertex by x,
+     * then y. Everything indexed by vertex, from the simplifier's anchor to the rail, then comes out
+     * the same for the same capture.
+     */
+    private Perimeter convertJTSToPerimeter(Polygon polygon) {
         Coordinate[] coords = polygon.getExteriorRing().getCoordinates();
-        List<Vector3f> vertices = new ArrayList<>();
-        
         // Skip the last coordinate as it's a duplicate of the first (ring closure)
-        for (int i = 0; i < coords.length - 1; i++) {
-            vertices.add(new Vector3f((float)coords[i].x, (float)coords[i].y, 0f));
+        int count = coords.length - 1;
+        float[] ring = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            ring[2 * i] = (float) coords[i].x;
+            ring[2 * i + 1] = (float) coords[i].y;
+        }
+        boolean reversed = PolygonSplitter.signedArea(ring) < 0;
+        int start = 0;
+        for (int i = 1; i < count; i++) {
+            if (ring[2 * i] < ring[2 * start] || (ring[2 * i] == ring[2 * start] && ring[2 * i + 1] < ring[2 * start + 1])) {
+                start = i;
+            }
+        }
+        float[] xy = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            int from = reversed ? (start - i + count) % count : (start + i) % count;
+            xy[2 * i] = ring[2 * from];
+            xy[2 * i + 1] = ring[2 * from + 1];
         }
-        
-        return vertices;
+        return createPerimeter(xy);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+/**
+ * Every outline the level has drawn, as one line mesh with one material. Each capture's new
+ * perimeter is made of pieces of the old boundary plus the drawing path, so the union of all
+ * outlines so far is just the initial loop plus every committed path; only those segments are
+ * appended. The position buffer doubles when it runs out of room, and segments already written
+ * are never touched again.
+ */
+public final class PerimeterOutlineBatch {
+
+    private static final float Z = 2f;
+
+    private final Geometry geometry;
+    private final Mesh mesh;
+    private FloatBuffer positions;
+
+    PerimeterOutlineBatch(Material material) {
+        positions = BufferUtils.createFloatBuffer(3 * 256);
+        positions.limit(0);
+
+        mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Lines);
+        mesh.setDynamic();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+
+        geometry = new Geometry("Perimeter", mesh);
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setLocalTranslation(0, 0, Z);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Appends the closed outline of the given perimeter.
+     */
+    public void addLoop(Perimeter perimeter) {
+        int n = perimeter.size();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            putSegment(perimeter.x(i), perimeter.y(i), perimeter.x(j), perimeter.y(j));
+        }
+        commit();
+    }
+
+    /**
+     * Appends the open polyline through the given points.
+     */
+    public void addPath(List<Vector3f> path) {
+        if (path == null || path.size() < 2) {
+            return;
+        }
+        ensureCapacity(path.size() - 1);
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Vector3f a = path.get(i);
+            Vector3f b = path.get(i + 1);
+            putSegment(a.x, a.y, b.x, b.y);
+        }
+        commit();
+    }
+
+    /**
+     * Number of line segments in the batch.
+     */
+    public int getSegmentCount() {
+        return positions.limit() / 6;
+    }
+
+    private void ensureCapacity(int segments) {
+        int needed = positions.limit() + segments * 6;
+        if (needed > positions.capacity()) {
+            FloatBuffer grown = BufferUtils.createFloatBuffer(Math.max(needed, positions.capacity() * 2));
+            positions.rewind();
+            grown.put(positions);
+            positions = grown;
+        } else {
+            positions.position(positions.limit());
+            positions.limit(positions.capacity());
+        }
+    }
+
+    private void putSegment(float ax, float ay, float bx, float by) {
+        positions.put(ax).put(ay).put(0f);
+        positions.put(bx).put(by).put(0f);
+    }
+
+    private void commit() {
+        positions.flip();
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.updateCounts();
+        mesh.updateBound();
+        geometry.updateModelBound();
+    }
+}
@@ -0,0 +1,198 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * Arc-length parameterization of a perimeter for movement along its boundary. A position on the
+ * rail is an edge index and a fraction {@code t} along that edge; {@code t == 0} means the player
+ * stands on the edge's start vertex. Edge {@code i} runs from vertex {@code i} to vertex
+ * {@code i + 1} (wrapping), as in {@link PerimeterEdgeIndex}. Instances are immutable and built
+ * once per {@link Perimeter}.
+ */
+public final class PerimeterRail {
+
+    // Positions closer than this to a vertex are snapped onto it.
+    private static final float VERTEX_SNAP = 0.001f;
+    // Input that is this close to perpendicular to an edge does not move along it.
+    private static final float MIN_ALIGNMENT = 0.05f;
+
+    /**
+     * Mutable position on a rail, owned by whoever is moving along it.
+     */
+    public static final class Position {
+        private int edge;
+        private float t;
+
+        public int getEdge() {
+            return edge;
+        }
+
+        public float getT() {
+            return t;
+        }
+
+        void set(int edge, float t) {
+            this.edge = edge;
+            this.t = t;
+        }
+    }
+
+    private final Perimeter perimeter;
+    private final int size;
+    // cumulative[i] is the arc length from vertex 0 to vertex i; cumulative[size] is the full length.
+    private final double[] cumulative;
+    private final float[] lengths;
+    private final float[] tangentX;
+    private final float[] tangentY;
+
+    PerimeterRail(Perimeter perimeter) {
+        this.perimeter = perimeter;
+        this.size = perimeter.size();
+        this.cumulative = new double[size + 1];
+        this.lengths = new float[size];
+        this.tangentX = new float[size];
+        this.tangentY = new float[size];
+        for (int i = 0; i < size; i++) {
+            int j = i + 1 == size ? 0 : i + 1;
+            float dx = perimeter.x(j) - perimeter.x(i);
+            float dy = perimeter.y(j) - perimeter.y(i);
+            float length = (float) Math.sqrt(dx * dx + dy * dy);
+            lengths[i] = length;
+            if (length > 0f) {
+                tangentX[i] = dx / length;
+                tangentY[i] = dy / length;
+            }
+            cumulative[i + 1] = cumulative[i] + length;
+        }
+    }
+
+    public double getLength() {
+        return cumulative[size];
+    }
+
+    /**
+     * Arc length from vertex 0 to the given position.
+     */
+    public double arcLength(Position position) {
+        return cumulative[position.edge] + position.t * lengths[position.edge];
+    }
+
+    /**
+     * Places {@code store} at the given arc length (wrapping around the ring) and returns it.
+     */
+    public Position locate(double arcLength, Position store) {
+        double total = getLength();
+        double s = total > 0 ? arcLength % total : 0;
+        if (s < 0) {
+            s += total;
+        }
+        // Last vertex whose cumulative length is <= s.
+        int lo = 0, hi = size - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (cumulative[mid] <= s) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        float t = lengths[lo] > 0 ? (float) ((s - cumulative[lo]) / lengths[lo]) : 0f;
+        return normalize(lo, t, store);
+    }
+
+    /**
+     * Places {@code store} at the point of the rail closest to (x, y) and returns it.
+     */
+    public Position project(float x, float y, Position store) {
+        PerimeterEdgeIndex index = perimeter.getEdgeIndex();
+        int edge = index.nearestEdge(x, y, Float.POSITIVE_INFINITY);
+        if (edge < 0) {
+            return normalize(0, 0f, store);
+        }
+        float length = lengths[edge];
+        float t = 0f;
+        if (length > 0f) {
+            float along = (x - perimeter.x(edge)) * tangentX[edge] + (y - perimeter.y(edge)) * tangentY[edge];
+            t = Math.max(0f, Math.min(1f, along / length));
+        }
+        return normalize(edge, t, store);
+    }
+
+    /**
+     * Stores the world position of a rail position in {@code store} and returns it.
+     */
+    public Vector3f getPoint(Position position, Vector3f store) {
+        int edge = position.edge;
+        float along = position.t * lengths[edge];
+        return store.set(perimeter.x(edge) + tangentX[edge] * along, perimeter.y(edge) + tangentY[edge] * along, 0f);
+    }
+
+    /**
+     * Moves the position along the rail as if pushed by {@code distance} units of input in the
+     * direction (dirX, dirY). Only the component of the input along the current edge moves the
+     * position, so diagonal input slides along axis-aligned walls at the same speed as the old
+     * snapping movement. At a vertex the position continues onto whichever adjacent edge agrees
+     * best with the input, and stops at the corner if neither does.
+     */
+    public void advance(Position position, float dirX, float dirY, float distance) {
+        float remaining = distance;
+        int edge = position.edge;
+        float t = position.t;
+        // Each pass either consumes the remaining input or reaches a vertex, so this terminates.
+        for (int guard = 0; guard <= size + 1 && remaining > 0f; guard++) {
+            boolean forward;
+            float alignment;
+            if (t == 0f) {
+                int previous = edge == 0 ? size - 1 : edge - 1;
+                float forwardAlignment = dirX * tangentX[edge] + dirY * tangentY[edge];
+                float backwardAlignment = -(dirX * tangentX[previous] + dirY * tangentY[previous]);
+                if (forwardAlignment >= backwardAlignment) {
+                    forward = true;
+                    alignment = forwardAlignment;
+                } else {
+                    forward = false;
+                    alignment = backwardAlignment;
+                    edge = previous;
+                    t = 1f;
+                }
+            } else {
+                alignment = dirX * tangentX[edge] + dirY * tangentY[edge];
+                forward = alignment >= 0f;
+                alignment = Math.abs(alignment);
+            }
+            if (alignment < MIN_ALIGNMENT) {
+                break;
+            }
+
+            float length = lengths[edge];
+            float available = forward ? (1f - t) * length : t * length;
+            float travel = remaining * alignment;
+            if (travel < available) {
+                t += (forward ? travel : -travel) / length;
+                remaining = 0f;
+            } else {
+                t = forward ? 1f : 0f;
+                remaining -= available / alignment;
+            }
+            Position normalized = normalize(edge, t, position);
+            edge = normalized.edge;
+            t = normalized.t;
+        }
+        normalize(edge, t, position);
+    }
+
+    /**
+     * Stores (edge, t) with positions at either end of the edge snapped to the vertex they are on.
+     */
+    private Position normalize(int edge, float t, Position store) {
+        float length = lengths[edge];
+        if (t * length <= VERTEX_SNAP) {
+            store.set(edge, 0f);
+        } else if ((1f - t) * length <= VERTEX_SNAP) {
+            store.set(edge + 1 == size ? 0 : edge + 1, 0f);
+        } else {
+            store.set(edge, t);
+        }
+        return store;
+    }
+}
@@ -4,29 +4,11 @@ import com.jme3.asset.AssetManager;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.math.ColorRGBA;
-import com.jme3.math.Vector2f;
-import com.jme3.math.Vector3f;
-import com.jme3.renderer.queue.RenderQueue;
-import com.jme3.scene.Geometry;
-import com.jme3.scene.Mesh;
-import com.jme3.scene.Node;
-import com.jme3.scene.VertexBuffer;
-import com.jme3.scene.shape.Quad;
 import com.jme3.texture.Image;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture2D;
 import com.jme3.util.BufferUtils;
 import java.nio.ByteBuffer;
-import org.poly2tri.Poly2Tri;
-import org.poly2tri.geometry.polygon.Polygon;
-import org.poly2tri.geometry.polygon.PolygonPoint;
-import org.poly2tri.triangulation.TriangulationPoint;
-import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
-
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
 
 public class PerimeterRenderer {
 
@@ -34,9 +16,9 @@ public class PerimeterRenderer {
     private final float screenWidth;
     private final float screenHeight;
     private String foregroundTexture = "Textures/field.png";
-    private static final float TRAIL_WIDTH = 5f;
-    private static final float TRAIL_Z = 3f;
     private Texture2D trailTexture;
+    private volatile Triangulator triangulator = new EarcutTriangulator();
+    private volatile boolean useRevealMask = false;
 
     public PerimeterRenderer(AssetManager assetManager, float screenWidth, float screenHeight) {
         this.assetManager = assetManager;
@@ -44,52 +26,66 @@ public class PerimeterRenderer {
         this.screenHeight = screenHeight;
     }
 
-    public void setForegroundTexture(String path) {
-        this.foregroundTexture = path;
+    public void setTriangulator(Triangulator triangulator) {
+        this.triangulator = triangulator;
     }
 
-    public Geometry createPerimeterLine(List<Vector3f> vertices) {
-        Mesh lineMesh = new Mesh();
-        lineMesh.setMode(Mesh.Mode.LineLoop);
-        lineMesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(vertices.toArray(new Vector3f[0])));
+    /**
+     * Selects the {@link RevealMaskDayField} instead of the {@link TriangulatedDayField}. Must be
+     * set before {@link #createDayField(Perimeter)}.
+     */
+    public void setUseRevealMask(boolean useRevealMask) {
+        this.useRevealMask = useRevealMask;
+    }
 
-        short[] indices = new short[vertices.size()];
-        for (short i = 0; i < vertices.size(); i++) {
-            indices[i] = i;
-        }
-        lineMesh.setBuffer(VertexBuffer.Type.Index, 1, indices);
-        lineMesh.updateBound();
+    public void setForegroundTexture(String path) {
+        this.foregroundTexture = path;
+    }
 
+    /**
+     * Creates the level's retained outline batch, starting with the initial perimeter. Must be
+     * called on the render thread.
+     */
+    public PerimeterOutlineBatch createPerimeterOutlines(Perimeter initialPerimeter) {
         Material lineMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
         lineMat.setColor("Color", ColorRGBA.White);
+        PerimeterOutlineBatch outlines = new PerimeterOutlineBatch(lineMat);
+        outlines.addLoop(initialPerimeter);
+        return outlines;
+    }
 
-        Geometry geom = new Geometry("Perimeter", lineMesh);
-        geom.setMaterial(lineMat);
-        geom.setQueueBucket(RenderQueue.Bucket.Gui);
-        geom.setLocalTranslation(0, 0, 2f);
-        return geom;
+    /**
+     * Creates the level's retained day field showing the given perimeter. Must be called on the
+     * render thread, after {@link #setForegroundTexture(String)}.
+     */
+    public DayField createDayField(Perimeter perimeter) {
+        return createDayField(perimeter, null);
     }
 
-    public Geometry createDayField(List<Vector3f> vertices) {
-        Mesh dayMesh = triangulate(vertices);
-        Geometry dayGeom = new Geometry("DayField", dayMesh);
+    /**
+     * Like {@link #createDayField(Perimeter)}, but a reveal mask follows the cells captured on the
+     * given grid territory rather than the captured polygons. The triangulated day field always
+     * follows the perimeter.
+     */
+    public DayField createDayField(Perimeter perimeter, GridTerritory gridTerritory) {
+        if (useRevealMask) {
+            Material maskMat = new Material(assetManager, "MatDefs/RevealMask/RevealMask.j3md");
+            maskMat.setTexture("ColorMap", assetManager.loadTexture(foregroundTexture));
+            maskMat.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+            return new RevealMaskDayField(maskMat, (int) screenWidth, (int) screenHeight, perimeter, gridTerritory);
+        }
         Material dayMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
         dayMat.setTexture("ColorMap", assetManager.loadTexture(foregroundTexture));
         dayMat.getAdditionalRenderState().setFaceCullMode(RenderState.FaceCullMode.Off);
-        dayGeom.setMaterial(dayMat);
-        dayGeom.setQueueBucket(RenderQueue.Bucket.Gui);
-        dayGeom.setLocalTranslation(0, 0, 1f);
-        return dayGeom;
+        TriangulatedDayField dayField = new TriangulatedDayField(dayMat, screenWidth, screenHeight);
+        dayField.update(perimeter, triangulate(perimeter));
+        return dayField;
     }
 
-    public Geometry createDrawingPathLine() {
-        Mesh lineMesh = new Mesh();
-        lineMesh.setMode(Mesh.Mode.Triangles);
-        lineMesh.setDynamic();
-        lineMesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(0));
-        lineMesh.setBuffer(VertexBuffer.Type.TexCoord, 2, BufferUtils.createFloatBuffer(0));
-        lineMesh.setBuffer(VertexBuffer.Type.Index, 3, BufferUtils.createIntBuffer(0));
-
+    /**
+     * Creates the level's retained drawing trail. Must be called on the render thread.
+     */
+    public DrawingTrail createDrawingTrail() {
         Material lineMat = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
         lineMat.setTexture("ColorMap", getTrailTexture());
         lineMat.setColor("Color", ColorRGBA.White);
@@ -98,87 +94,7 @@ public class PerimeterRenderer {
         lineMat.getAdditionalRenderState().setDepthTest(false);
         lineMat.getAdditionalRenderState().setDepthWrite(false);
         lineMat.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Additive);
-
-        Geometry geom = new Geometry("DrawingPath", lineMesh);
-        geom.setMaterial(lineMat);
-        geom.setQueueBucket(RenderQueue.Bucket.Gui);
-        geom.setLocalTranslation(0, 0, 3f);
-        return geom;
-    }
-
-
-    public void updateDrawingPathVisuals(Geometry drawingPathGeom, List<Vector3f> path) {
-        Mesh mesh = drawingPathGeom.getMesh();
-        if (path == null || path.size() < 2) {
-            mesh.clearBuffer(VertexBuffer.Type.Position);
-            mesh.clearBuffer(VertexBuffer.Type.TexCoord);
-            mesh.clearBuffer(VertexBuffer.Type.Index);
-            mesh.updateCounts();
-            mesh.updateBound();
-            return;
-        }
-
-        int size = path.size();
-        Vector3f[] vertices = new Vector3f[size * 2];
-        Vector2f[] uvs = new Vector2f[size * 2];
-        float[] distances = new float[size];
-        distances[0] = 0f;
-        for (int i = 1; i < size; i++) {
-            distances[i] = distances[i - 1] + path.get(i).distance(path.get(i - 1));
-        }
-        float totalLength = distances[size - 1];
-
-        float halfWidth = TRAIL_WIDTH / 2f;
-        for (int i = 0; i < size; i++) {
-            Vector3f point = path.get(i);
-            Vector3f prevPoint = i == 0 ? point : path.get(i - 1);
-            Vector3f nextPoint = i == size - 1 ? point : path.get(i + 1);
-
-            Vector3f dir = nextPoint.subtract(prevPoint);
-            if (dir.lengthSquared() < 1e-4f) {
-                dir = new Vector3f(0, 1, 0);
-            } else {
-                dir.normalizeLocal();
-            }
-
-            Vector3f normal = new Vector3f(-dir.y, dir.x, 0f);
-            if (normal.lengthSquared() < 1e-4f) {
-                normal = new Vector3f(0, 1, 0);
-            } else {
-                normal.normalizeLocal();
-            }
-            Vector3f offset = normal.mult(halfWidth);
-
-            Vector3f left = new Vector3f(point.x + offset.x, point.y + offset.y, TRAIL_Z);
-            Vector3f right = new Vector3f(point.x - offset.x, point.y - offset.y, TRAIL_Z);
-            vertices[i * 2] = left;
-            vertices[i * 2 + 1] = right;
-
-            float v = totalLength > 0f ? distances[i] / totalLength : 0f;
-            uvs[i * 2] = new Vector2f(0f, v);
-            uvs[i * 2 + 1] = new Vector2f(1f, v);
-        }
-
-        int[] indices = new int[(size - 1) * 6];
-        int indexPos = 0;
-        for (int i = 0; i < size - 1; i++) {
-            int left0 = i * 2;
-            int right0 = left0 + 1;
-            int left1 = left0 + 2;
-            int right1 = left1 + 1;
-            indices[indexPos++] = left0;
-            indices[indexPos++] = right0;
-            indices[indexPos++] = left1;
-            indices[indexPos++] = left1;
-            indices[indexPos++] = right0;
-            indices[indexPos++] = right1;
-        }
-
-        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(vertices));
-        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, BufferUtils.createFloatBuffer(uvs));
-        mesh.setBuffer(VertexBuffer.Type.Index, 3, BufferUtils.createIntBuffer(indices));
-        mesh.updateCounts();
-        mesh.updateBound();
+        return new DrawingTrail(lineMat);
     }
 
     private Texture2D getTrailTexture() {
@@ -214,76 +130,22 @@ public class PerimeterRenderer {
         return trailTexture;
     }
 
-    private Mesh triangulate(List<Vector3f> polygonVerts) {
-        if (polygonVerts == null || polygonVerts.size() < 3) {
-            return new Mesh();
-        }
-
-        List<PolygonPoint> points = new ArrayList<>();
-        for (Vector3f v : polygonVerts) {
-            points.add(new PolygonPoint(v.x, v.y));
-        }
-
-        Polygon polygon = new Polygon(points);
-        try {
-            Poly2Tri.triangulate(polygon);
-        } catch (Exception e) {
-            System.err.println("Triangulation failed: " + e.getMessage());
-            // In case of failure, return a simple fallback mesh (single triangle)
-            return createFallbackMesh();
-        }
-
-        List<DelaunayTriangle> triangles = polygon.getTriangles();
-        List<Vector3f> uniqueVerts = new ArrayList<>();
-        List<Vector2f> uniqueUVs = new ArrayList<>();
-        List<Integer> newIndices = new ArrayList<>();
-        Map<TriangulationPoint, Integer> vertexMap = new LinkedHashMap<>();
-        int nextIndex = 0;
-
-        for (DelaunayTriangle t : triangles) {
-            for (TriangulationPoint p : t.points) {
-                if (!vertexMap.containsKey(p)) {
-                    vertexMap.put(p, nextIndex++);
-                    uniqueVerts.add(new Vector3f((float) p.getX(), (float) p.getY(), 0f));
-                    
-                    // Generate UV coordinates by mapping screen coordinates to 0-1 range
-                    float u = (float) p.getX() / screenWidth;
-                    float v = (float) p.getY() / screenHeight;
-                    uniqueUVs.add(new Vector2f(u, v));
-                }
-                newIndices.add(vertexMap.get(p));
-            }
-        }
-
-        Mesh mesh = new Mesh();
-        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(uniqueVerts.toArray(new Vector3f[0])));
-        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, BufferUtils.createFloatBuffer(uniqueUVs.toArray(new Vector2f[0])));
-        mesh.setBuffer(VertexBuffer.Type.Index, 3, BufferUtils.createIntBuffer(newIndices.stream().mapToInt(i -> i).toArray()));
-        mesh.updateBound();
-        return mesh;
+    /**
+     * Triangulation for {@link CaptureResult#getDayFieldTriangles()}: the result of
+     * {@link #triangulate(Perimeter)}, or null when the reveal mask is in use and nothing needs
+     * triangulating. Safe to call off the render thread.
+     */
+    public int[] triangulateDayField(Perimeter perimeter) {
+        return useRevealMask ? null : triangulate(perimeter);
     }
 
-    private Mesh createFallbackMesh() {
-        // Create a simple single triangle mesh that won't crash
-        Vector3f[] vertices = {
-            new Vector3f(0, 0, 0),
-            new Vector3f(100, 0, 0),
-            new Vector3f(50, 100, 0)
-        };
-        
-        Vector2f[] uvs = {
-            new Vector2f(0, 0),
-            new Vector2f(1, 0),
-            new Vector2f(0.5f, 1)
-        };
-        
-        int[] indices = {0, 1, 2};
-        
-        Mesh mesh = new Mesh();
-        mesh.setBuffer(VertexBuffer.Type.Position, 3, BufferUtils.createFloatBuffer(vertices));
-        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, BufferUtils.createFloatBuffer(uvs));
-        mesh.setBuffer(VertexBuffer.Type.Index, 3, BufferUtils.createIntBuffer(indices));
-        mesh.updateBound();
-        return mesh;
+    /**
+     * Triangulates the perimeter for a {@link TriangulatedDayField} with the configured
+     * {@link Triangulator}, returning vertex index triples into the perimeter, or null if the
+     * triangulation failed.
+     * Safe to call off the render thread.
+     */
+    public int[] triangulate(Perimeter perimeter) {
+        return triangulator.triangulate(perimeter);
     }
 }
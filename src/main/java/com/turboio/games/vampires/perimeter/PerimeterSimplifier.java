@@ -0,0 +1,113 @@
+package com.turboio.games.vampires.perimeter;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+import java.util.Arrays;
+
+/**
+ * Post-capture cleanup for perimeter rings. Collinear and near-duplicate vertices are always
+ * merged; if a positive tolerance is set, the ring is then run through JTS's topology-preserving
+ * Douglas-Peucker simplifier, which moves the boundary by at most that distance and never makes
+ * it self-intersect. Keeps the vertex count, and with it the cost of every per-frame perimeter
+ * query, from growing with each capture.
+ */
+public final class PerimeterSimplifier {
+
+    // Vertices closer than this to the line through their neighbours are dropped unconditionally.
+    private static final double COLLINEAR_TOLERANCE = 1e-3;
+
+    private final float tolerance;
+
+    /**
+     * @param tolerance maximum distance the boundary may move; 0 only merges collinear vertices
+     */
+    public PerimeterSimplifier(float tolerance) {
+        if (tolerance < 0f) {
+            throw new IllegalArgumentException("tolerance must not be negative: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Simplifies a ring of packed {@code x, y} pairs. Returns the input unchanged if
+     * simplification would leave fewer than 3 vertices.
+     */
+    public float[] simplify(float[] ring) {
+        float[] merged = mergeCollinear(ring);
+        if (merged.length < 6) {
+            return ring;
+        }
+        if (tolerance == 0f || merged.length == 6) {
+            return merged;
+        }
+
+        Polygon polygon = new Perimeter(merged, merged.length / 2).getJtsPolygon();
+        Geometry simplified = TopologyPreservingSimplifier.simplify(polygon, tolerance);
+        if (!(simplified instanceof Polygon) || simplified.isEmpty()) {
+            return merged;
+        }
+        Coordinate[] coords = ((Polygon) simplified).getExteriorRing().getCoordinates();
+        int count = coords.length - 1; // Drop the closing coordinate.
+        if (count < 3) {
+            return merged;
+        }
+        float[] result = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            result[2 * i] = (float) coords[i].x;
+            result[2 * i + 1] = (float) coords[i].y;
+        }
+        return result;
+    }
+
+    /**
+     * Drops every vertex that lies on the line through its neighbours, including runs of them and
+     * the ones around the ring's start.
+     */
+    static float[] mergeCollinear(float[] ring) {
+        int n = ring.length / 2;
+        float[] out = new float[ring.length];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            out[2 * count] = ring[2 * i];
+            out[2 * count + 1] = ring[2 * i + 1];
+            count++;
+            while (count >= 3 && isCollinear(out, count - 3, count - 2, count - 1)) {
+                out[2 * (count - 2)] = out[2 * (count - 1)];
+                out[2 * (count - 2) + 1] = out[2 * (count - 1) + 1];
+                count--;
+            }
+        }
+        // The stack pass never looked across the seam between the last and first vertices.
+        int start = 0;
+        boolean changed = true;
+        while (changed && count - start >= 3) {
+            changed = false;
+            if (isCollinear(out, count - 2, count - 1, start)) {
+                count--;
+                changed = true;
+            } else if (isCollinear(out, count - 1, start, start + 1)) {
+                start++;
+                changed = true;
+            }
+        }
+        return Arrays.copyOfRange(out, 2 * start, 2 * count);
+    }
+
+    private static boolean isCollinear(float[] xy, int a, int b, int c) {
+        double ax = xy[2 * a], ay = xy[2 * a + 1];
+        double cx = xy[2 * c] - ax, cy = xy[2 * c + 1] - ay;
+        double bx = xy[2 * b] - ax, by = xy[2 * b + 1] - ay;
+        double length = Math.hypot(cx, cy);
+        if (length == 0) {
+            return true;
+        }
+        return Math.abs(cx * by - cy * bx) / length <= COLLINEAR_TOLERANCE;
+    }
+}
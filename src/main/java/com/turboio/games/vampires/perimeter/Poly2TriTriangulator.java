@@ -0,0 +1,60 @@
+package com.turboio.games.vampires.perimeter;
+
+import org.poly2tri.Poly2Tri;
+import org.poly2tri.geometry.polygon.Polygon;
+import org.poly2tri.geometry.polygon.PolygonPoint;
+import org.poly2tri.triangulation.TriangulationPoint;
+import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Constrained Delaunay triangulation through poly2tri. Produces nicer-shaped triangles than
+ * {@link EarcutTriangulator}, at the cost of a much heavier object graph per call.
+ */
+public final class Poly2TriTriangulator implements Triangulator {
+
+    @Override
+    public int[] triangulate(Perimeter perimeter) {
+        if (perimeter == null || perimeter.size() < 3) {
+            return new int[0];
+        }
+
+        List<PolygonPoint> points = new ArrayList<>(perimeter.size());
+        for (int i = 0; i < perimeter.size(); i++) {
+            points.add(new IndexedPoint(perimeter.x(i), perimeter.y(i), i));
+        }
+
+        Polygon polygon = new Polygon(points);
+        try {
+            Poly2Tri.triangulate(polygon);
+        } catch (Exception e) {
+            System.err.println("Triangulation failed: " + e.getMessage());
+            return null;
+        }
+
+        // Without Steiner points every triangle corner is one of our own points.
+        List<DelaunayTriangle> triangles = polygon.getTriangles();
+        int[] indices = new int[triangles.size() * 3];
+        int k = 0;
+        for (DelaunayTriangle t : triangles) {
+            for (TriangulationPoint p : t.points) {
+                indices[k++] = ((IndexedPoint) p).index;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Polygon point that remembers which perimeter vertex it came from.
+     */
+    private static final class IndexedPoint extends PolygonPoint {
+        final int index;
+
+        IndexedPoint(double x, double y, int index) {
+            super(x, y);
+            this.index = index;
+        }
+    }
+}
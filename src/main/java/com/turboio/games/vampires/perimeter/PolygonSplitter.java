@@ -0,0 +1,382 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a perimeter along a drawing path whose first and last points lie on the perimeter boundary.
+ * A capture only ever cuts one simple polygon along one polyline, so instead of noding the whole
+ * boundary against the path we locate the entry and exit edges and stitch the two candidate rings
+ * together from the boundary chain and the path. Everything here is linear in the perimeter size.
+ * Rings are produced as packed {@code x, y} arrays, ready for {@link Perimeter#Perimeter(float[], int)}.
+ */
+public final class PolygonSplitter {
+
+    private static final float MIN_SEGMENT_LENGTH_SQUARED = 1e-8f;
+    private static final double AREA_TOLERANCE = 1e-3;
+
+    private PolygonSplitter() {
+    }
+
+    /**
+     * The two rings produced by a split. Both rings are counter-clockwise and together cover the
+     * original perimeter exactly.
+     */
+    public static final class Split {
+        private final float[] first;
+        private final float[] second;
+        private final double firstArea;
+        private final double secondArea;
+
+        private Split(float[] first, float[] second, double firstArea, double secondArea) {
+            this.first = first;
+            this.second = second;
+            this.firstArea = firstArea;
+            this.secondArea = secondArea;
+        }
+
+        public float[] getFirst() {
+            return first;
+        }
+
+        public float[] getSecond() {
+            return second;
+        }
+
+        public double getFirstArea() {
+            return firstArea;
+        }
+
+        public double getSecondArea() {
+            return secondArea;
+        }
+
+        /**
+         * The ring other than {@code kept}, i.e. the region a capture keeping {@code kept} claims.
+         */
+        public float[] getCaptured(float[] kept) {
+            return kept == first ? second : first;
+        }
+
+        /**
+         * Area of the ring other than {@code kept}, i.e. the region a capture keeping {@code kept}
+         * claims.
+         */
+        public double getCapturedArea(float[] kept) {
+            return kept == first ? secondArea : firstArea;
+        }
+
+        /**
+         * Returns the ring that strictly contains the given point, or null if neither does.
+         */
+        public float[] select(Vector3f point) {
+            if (ringContains(first, point.x, point.y)) {
+                return first;
+            }
+            if (ringContains(second, point.x, point.y)) {
+                return second;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Splits the perimeter along the path. Returns null if the path does not start and end on the
+     * boundary within the given tolerance, if it crosses itself or touches the boundary anywhere
+     * but at its two ends, or if the resulting rings are not a clean partition of the perimeter;
+     * callers are expected to fall back to a general overlay in that case.
+     */
+    public static Split split(Perimeter perimeter, List<Vector3f> path, float tolerance) {
+        float[] inner = dedupe(path);
+        int innerCount = inner.length / 2;
+        if (innerCount < 2) {
+            return null;
+        }
+
+        int last = innerCount - 1;
+        EdgeHit entry = findEdge(perimeter, inner[0], inner[1], tolerance);
+        EdgeHit exit = findEdge(perimeter, inner[2 * last], inner[2 * last + 1], tolerance);
+        if (entry == null || exit == null) {
+            return null;
+        }
+        if (!isSimplePath(inner) || touchesRing(perimeter, inner, tolerance)) {
+            return null;
+        }
+
+        int n = perimeter.size();
+        int innerVertices = innerCount - 2;
+
+        // Boundary from the exit point forwards to the entry point, then the path from entry to exit.
+        int firstChain = chainLength(n, exit, entry);
+        float[] first = new float[2 * (firstChain + 2 + innerVertices)];
+        int k = put(first, 0, inner[2 * last], inner[2 * last + 1]);
+        k = appendChain(perimeter, exit.edge, firstChain, first, k);
+        k = put(first, k, inner[0], inner[1]);
+        for (int i = 1; i < last; i++) {
+            k = put(first, k, inner[2 * i], inner[2 * i + 1]);
+        }
+
+        // Boundary from the entry point forwards to the exit point, then the path back to the entry.
+        int secondChain = chainLength(n, entry, exit);
+        float[] second = new float[2 * (secondChain + 2 + innerVertices)];
+        k = put(second, 0, inner[0], inner[1]);
+        k = appendChain(perimeter, entry.edge, secondChain, second, k);
+        k = put(second, k, inner[2 * last], inner[2 * last + 1]);
+        for (int i = last - 1; i > 0; i--) {
+            k = put(second, k, inner[2 * i], inner[2 * i + 1]);
+        }
+
+        // Signed areas are additive, so only the ring with fewer vertices (the path plus the shorter
+        // boundary chain) needs a shoelace pass; the other area follows from the cached total.
+        double total = perimeter.getArea();
+        boolean firstIsShorter = first.length <= second.length;
+        double shorterArea = signedArea(firstIsShorter ? first : second);
+        double longerArea = total - shorterArea;
+        double minArea = AREA_TOLERANCE * Math.max(1.0, total);
+        if (shorterArea <= 0 || longerArea < minArea) {
+            return null;
+        }
+        return firstIsShorter
+                ? new Split(first, second, shorterArea, longerArea)
+                : new Split(first, second, longerArea, shorterArea);
+    }
+
+    private static final class EdgeHit {
+        final int edge;
+        final float t;
+
+        EdgeHit(int edge, float t) {
+            this.edge = edge;
+            this.t = t;
+        }
+    }
+
+    private static EdgeHit findEdge(Perimeter perimeter, float px, float py, float tolerance) {
+        int n = perimeter.size();
+        int bestEdge = -1;
+        float bestT = 0f;
+        float bestDistanceSquared = tolerance * tolerance;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            float ax = perimeter.x(i), ay = perimeter.y(i);
+            float dx = perimeter.x(j) - ax;
+            float dy = perimeter.y(j) - ay;
+            float lengthSquared = dx * dx + dy * dy;
+            float t = lengthSquared < MIN_SEGMENT_LENGTH_SQUARED
+                    ? 0f
+                    : Math.max(0f, Math.min(1f, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+            float ex = ax + dx * t - px;
+            float ey = ay + dy * t - py;
+            float distanceSquared = ex * ex + ey * ey;
+            if (distanceSquared <= bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                bestEdge = i;
+                bestT = t;
+            }
+        }
+        if (bestEdge < 0) {
+            return null;
+        }
+        return new EdgeHit(bestEdge, bestT);
+    }
+
+    /**
+     * Number of ring vertices met when walking forwards along the boundary from one hit to another.
+     */
+    private static int chainLength(int n, EdgeHit from, EdgeHit to) {
+        int count = (to.edge - from.edge + n) % n;
+        if (count == 0 && from.t > to.t) {
+            count = n;
+        }
+        return count;
+    }
+
+    private static int appendChain(Perimeter perimeter, int fromEdge, int count, float[] out, int k) {
+        int n = perimeter.size();
+        for (int step = 1; step <= count; step++) {
+            int v = (fromEdge + step) % n;
+            k = put(out, k, perimeter.x(v), perimeter.y(v));
+        }
+        return k;
+    }
+
+    private static int put(float[] out, int k, float x, float y) {
+        out[k] = x;
+        out[k + 1] = y;
+        return k + 2;
+    }
+
+    /**
+     * Checks that no two path segments meet other than consecutive ones at their shared vertex,
+     * which also rules out a segment doubling back over the one before it.
+     */
+    private static boolean isSimplePath(float[] path) {
+        int segments = path.length / 2 - 1;
+        for (int s = 0; s < segments; s++) {
+            float p1x = path[2 * s], p1y = path[2 * s + 1];
+            float p2x = path[2 * s + 2], p2y = path[2 * s + 3];
+            if (s + 1 < segments) {
+                float p3x = path[2 * s + 4], p3y = path[2 * s + 5];
+                if (orientation(p1x, p1y, p2x, p2y, p3x, p3y) == 0
+                        && ((double) p2x - p1x) * ((double) p3x - p2x) + ((double) p2y - p1y) * ((double) p3y - p2y) < 0) {
+                    return false;
+                }
+            }
+            for (int t = s + 2; t < segments; t++) {
+                if (intersects(p1x, p1y, p2x, p2y, path[2 * t], path[2 * t + 1], path[2 * t + 2], path[2 * t + 3])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the path meets any ring edge, crossing or merely touching it, anywhere other
+     * than at its first and last points. Those may sit on an edge or a vertex within the given
+     * tolerance, as long as the segment leaving them heads away from the edge rather than along it.
+     */
+    private static boolean touchesRing(Perimeter perimeter, float[] path, float tolerance) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < path.length; i += 2) {
+            minX = Math.min(minX, path[i]);
+            minY = Math.min(minY, path[i + 1]);
+            maxX = Math.max(maxX, path[i]);
+            maxY = Math.max(maxY, path[i + 1]);
+        }
+
+        int n = perimeter.size();
+        int segments = path.length / 2 - 1;
+        int end = path.length - 2;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            float ax = perimeter.x(i), ay = perimeter.y(i);
+            float bx = perimeter.x(j), by = perimeter.y(j);
+            if (Math.max(ax, bx) < minX - tolerance || Math.min(ax, bx) > maxX + tolerance
+                    || Math.max(ay, by) < minY - tolerance || Math.min(ay, by) > maxY + tolerance) {
+                continue;
+            }
+            for (int s = 0; s < segments; s++) {
+                float p1x = path[2 * s], p1y = path[2 * s + 1];
+                float p2x = path[2 * s + 2], p2y = path[2 * s + 3];
+                boolean startContact = s == 0 && leavesFrom(p1x, p1y, p2x, p2y, ax, ay, bx, by, tolerance);
+                boolean endContact = s == segments - 1 && leavesFrom(p2x, p2y, p1x, p1y, ax, ay, bx, by, tolerance);
+                if (startContact || endContact) {
+                    // A non-collinear segment meets the edge's line once, and that is at its end.
+                    continue;
+                }
+                if (intersects(p1x, p1y, p2x, p2y, ax, ay, bx, by)
+                        || (s > 0 && distanceSquared(p1x, p1y, ax, ay, bx, by) <= tolerance * tolerance)
+                        || (2 * s + 2 < end && distanceSquared(p2x, p2y, ax, ay, bx, by) <= tolerance * tolerance)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the segment from {@code (px, py)} to {@code (qx, qy)} starts on the edge, within the
+     * tolerance, and leaves it rather than running along it.
+     */
+    private static boolean leavesFrom(float px, float py, float qx, float qy,
+                                      float ax, float ay, float bx, float by, float tolerance) {
+        float toleranceSquared = tolerance * tolerance;
+        if (distanceSquared(px, py, ax, ay, bx, by) > toleranceSquared) {
+            return false;
+        }
+        double dx = (double) bx - ax;
+        double dy = (double) by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared < MIN_SEGMENT_LENGTH_SQUARED) {
+            return true;
+        }
+        double offset = orientation(ax, ay, bx, by, qx, qy);
+        return offset * offset > toleranceSquared * lengthSquared;
+    }
+
+    /**
+     * Whether the two closed segments share at least one point, including touching and collinear
+     * overlap.
+     */
+    private static boolean intersects(float p1x, float p1y, float p2x, float p2y,
+                                      float q1x, float q1y, float q2x, float q2y) {
+        double d1 = orientation(q1x, q1y, q2x, q2y, p1x, p1y);
+        double d2 = orientation(q1x, q1y, q2x, q2y, p2x, p2y);
+        double d3 = orientation(p1x, p1y, p2x, p2y, q1x, q1y);
+        double d4 = orientation(p1x, p1y, p2x, p2y, q2x, q2y);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0))
+                && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return (d1 == 0 && withinBox(p1x, p1y, q1x, q1y, q2x, q2y))
+                || (d2 == 0 && withinBox(p2x, p2y, q1x, q1y, q2x, q2y))
+                || (d3 == 0 && withinBox(q1x, q1y, p1x, p1y, p2x, p2y))
+                || (d4 == 0 && withinBox(q2x, q2y, p1x, p1y, p2x, p2y));
+    }
+
+    private static boolean withinBox(float x, float y, float ax, float ay, float bx, float by) {
+        return x >= Math.min(ax, bx) && x <= Math.max(ax, bx) && y >= Math.min(ay, by) && y <= Math.max(ay, by);
+    }
+
+    private static float distanceSquared(float px, float py, float ax, float ay, float bx, float by) {
+        float dx = bx - ax;
+        float dy = by - ay;
+        float lengthSquared = dx * dx + dy * dy;
+        float t = lengthSquared < MIN_SEGMENT_LENGTH_SQUARED
+                ? 0f
+                : Math.max(0f, Math.min(1f, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        float ex = ax + dx * t - px;
+        float ey = ay + dy * t - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static double orientation(float ax, float ay, float bx, float by, float cx, float cy) {
+        return ((double) bx - ax) * ((double) cy - ay) - ((double) by - ay) * ((double) cx - ax);
+    }
+
+    private static float[] dedupe(List<Vector3f> path) {
+        float[] result = new float[path.size() * 2];
+        int k = 0;
+        for (Vector3f p : path) {
+            if (p == null) {
+                continue;
+            }
+            if (k > 0) {
+                float dx = p.x - result[k - 2];
+                float dy = p.y - result[k - 1];
+                if (dx * dx + dy * dy < MIN_SEGMENT_LENGTH_SQUARED) {
+                    continue;
+                }
+            }
+            k = put(result, k, p.x, p.y);
+        }
+        return k == result.length ? result : Arrays.copyOf(result, k);
+    }
+
+    static double signedArea(float[] ring) {
+        double area = 0.0;
+        int n = ring.length / 2;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            area += (double) ring[2 * i] * ring[2 * j + 1] - (double) ring[2 * j] * ring[2 * i + 1];
+        }
+        return area / 2.0;
+    }
+
+    static boolean ringContains(float[] ring, float x, float y) {
+        boolean inside = false;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            float ax = ring[2 * i], ay = ring[2 * i + 1];
+            float bx = ring[2 * j], by = ring[2 * j + 1];
+            if ((ay > y) != (by > y) && x < (bx - ax) * (y - ay) / (by - ay) + ax) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,200 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.util.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Single-channel coverage mask for the {@link RevealMaskDayField}, one byte per pixel of the play
+ * field. Regions are scanline filled at pixel centres with the even-odd rule, so a fill only
+ * touches the rows and columns of the region itself, and every fill grows a dirty rectangle so
+ * only that part of the mask has to be uploaded again.
+ */
+final class RevealMask {
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer pixels;
+    // Reused between fills; grows to the largest number of crossings seen on one row.
+    private float[] crossings = new float[16];
+
+    private int dirtyMinX = Integer.MAX_VALUE;
+    private int dirtyMinY = Integer.MAX_VALUE;
+    private int dirtyMaxX = -1;
+    private int dirtyMaxY = -1;
+
+    RevealMask(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Mask size must be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = BufferUtils.createByteBuffer(width * height);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * The whole mask, row by row from the bottom, with position 0 and limit at the end.
+     */
+    ByteBuffer getPixels() {
+        return pixels;
+    }
+
+    int get(int x, int y) {
+        return pixels.get(y * width + x) & 0xFF;
+    }
+
+    /**
+     * Sets every pixel whose centre lies inside the given rings to {@code value}. Rings are packed
+     * {@code x, y} pairs; where rings overlap the even-odd rule applies, so a ring nested inside
+     * another cuts a hole into it.
+     */
+    void fill(float[][] rings, int value) {
+        float minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        int edgeCount = 0;
+        for (float[] ring : rings) {
+            for (int i = 1; i < ring.length; i += 2) {
+                minY = Math.min(minY, ring[i]);
+                maxY = Math.max(maxY, ring[i]);
+            }
+            edgeCount += ring.length / 2;
+        }
+        if (edgeCount == 0) {
+            return;
+        }
+        if (crossings.length < edgeCount) {
+            crossings = new float[Math.max(edgeCount, crossings.length * 2)];
+        }
+
+        byte fill = (byte) value;
+        int row0 = Math.max(0, (int) Math.ceil(minY - 0.5f));
+        int row1 = Math.min(height - 1, (int) Math.floor(maxY - 0.5f));
+        for (int row = row0; row <= row1; row++) {
+            float y = row + 0.5f;
+            int count = 0;
+            for (float[] ring : rings) {
+                int n = ring.length / 2;
+                for (int i = 0; i < n; i++) {
+                    int j = i + 1 == n ? 0 : i + 1;
+                    float ay = ring[2 * i + 1], by = ring[2 * j + 1];
+                    if ((ay > y) != (by > y)) {
+                        float ax = ring[2 * i], bx = ring[2 * j];
+                        crossings[count++] = ax + (bx - ax) * (y - ay) / (by - ay);
+                    }
+                }
+            }
+            Arrays.sort(crossings, 0, count);
+            for (int k = 0; k + 1 < count; k += 2) {
+                int x0 = Math.max(0, (int) Math.ceil(crossings[k] - 0.5f));
+                int x1 = Math.min(width - 1, (int) Math.floor(crossings[k + 1] - 0.5f));
+                if (x0 > x1) {
+                    continue;
+                }
+                int rowStart = row * width;
+                for (int x = x0; x <= x1; x++) {
+                    pixels.put(rowStart + x, fill);
+                }
+                markDirty(x0, row, x1);
+            }
+        }
+    }
+
+    /**
+     * Sets every pixel whose centre lies in a captured cell of the grid's dirty rectangle to
+     * {@code value}, then clears the grid's dirty rectangle. Runs of captured cells on a row are
+     * filled as one span.
+     */
+    void fillCapturedCells(GridTerritory grid, int value) {
+        if (!grid.hasDirtyRegion()) {
+            return;
+        }
+        byte fill = (byte) value;
+        float cellSize = grid.getCellSize();
+        for (int row = grid.getDirtyMinRow(); row <= grid.getDirtyMaxRow(); row++) {
+            int y0 = Math.max(0, (int) Math.ceil(row * cellSize - 0.5f));
+            int y1 = Math.min(height - 1, (int) Math.ceil((row + 1) * cellSize - 0.5f) - 1);
+            int column = grid.getDirtyMinColumn();
+            while (column <= grid.getDirtyMaxColumn()) {
+                if (grid.isOpen(column, row)) {
+                    column++;
+                    continue;
+                }
+                int c0 = column;
+                while (column <= grid.getDirtyMaxColumn() && !grid.isOpen(column, row)) {
+                    column++;
+                }
+                int x0 = Math.max(0, (int) Math.ceil(c0 * cellSize - 0.5f));
+                int x1 = Math.min(width - 1, (int) Math.ceil(column * cellSize - 0.5f) - 1);
+                if (x0 > x1) {
+                    continue;
+                }
+                for (int y = y0; y <= y1; y++) {
+                    int rowStart = y * width;
+                    for (int x = x0; x <= x1; x++) {
+                        pixels.put(rowStart + x, fill);
+                    }
+                    markDirty(x0, y, x1);
+                }
+            }
+        }
+        grid.clearDirtyRegion();
+    }
+
+    boolean hasDirtyRegion() {
+        return dirtyMaxX >= 0;
+    }
+
+    int getDirtyMinX() {
+        return dirtyMinX;
+    }
+
+    int getDirtyMinY() {
+        return dirtyMinY;
+    }
+
+    int getDirtyMaxX() {
+        return dirtyMaxX;
+    }
+
+    int getDirtyMaxY() {
+        return dirtyMaxY;
+    }
+
+    /**
+     * Copies the dirty rectangle, row by row, into {@code store} and flips it. The buffer needs
+     * room for the whole rectangle.
+     */
+    void copyDirtyRegion(ByteBuffer store) {
+        store.clear();
+        int rowLength = dirtyMaxX - dirtyMinX + 1;
+        ByteBuffer source = pixels.duplicate();
+        for (int row = dirtyMinY; row <= dirtyMaxY; row++) {
+            int start = row * width + dirtyMinX;
+            source.limit(start + rowLength).position(start);
+            store.put(source);
+        }
+        store.flip();
+    }
+
+    void clearDirtyRegion() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+    }
+
+    private void markDirty(int x0, int row, int x1) {
+        dirtyMinX = Math.min(dirtyMinX, x0);
+        dirtyMaxX = Math.max(dirtyMaxX, x1);
+        dirtyMinY = Math.min(dirtyMinY, row);
+        dirtyMaxY = Math.max(dirtyMaxY, row);
+    }
+}
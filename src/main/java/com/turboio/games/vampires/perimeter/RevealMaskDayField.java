@@ -0,0 +1,105 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.material.Material;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.shape.Quad;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.util.BufferUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link DayField} drawn as one static full-screen quad that samples the foreground texture
+ * through a {@link RevealMask}. The initial perimeter is rasterized into the mask once; after
+ * that each capture only clears its captured region, and only the dirty rectangle is copied to
+ * the GPU, from {@link Control#controlRender} where the renderer is at hand. Render cost does not
+ * depend on the complexity of the perimeter, and captures need no triangulation.
+ * <p>
+ * With a {@link GridTerritory} the captured cells are cleared instead of the captured polygons,
+ * so the field shows the area the grid counts.
+ */
+public final class RevealMaskDayField implements DayField {
+
+    static final int REVEALED = 0;
+    static final int HIDDEN = 255;
+
+    private final Geometry geometry;
+    private final RevealMask mask;
+    private final Texture2D maskTexture;
+    // Holds the dirty rectangle for upload; sized for the whole mask so it never grows.
+    private final ByteBuffer staging;
+    private final Image stagingImage;
+    private final GridTerritory gridTerritory;
+
+    RevealMaskDayField(Material material, int width, int height, Perimeter perimeter, GridTerritory gridTerritory) {
+        this.gridTerritory = gridTerritory;
+        mask = new RevealMask(width, height);
+        mask.fill(new float[][]{perimeter.copyCoordinates()}, HIDDEN);
+        mask.clearDirtyRegion();
+
+        maskTexture = new Texture2D(new Image(Image.Format.Luminance8, width, height, mask.getPixels()));
+        maskTexture.setMagFilter(Texture.MagFilter.Bilinear);
+        maskTexture.setMinFilter(Texture.MinFilter.BilinearNoMipMaps);
+        material.setTexture("Mask", maskTexture);
+
+        staging = BufferUtils.createByteBuffer(width * height);
+        stagingImage = new Image(Image.Format.Luminance8, 1, 1, staging);
+
+        geometry = new Geometry("DayField", new Quad(width, height));
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setLocalTranslation(0, 0, 1f);
+        geometry.addControl(new Control());
+    }
+
+    @Override
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Clears the captured region from the mask, or with a grid territory the cells captured since
+     * the last update. Results without a captured region (a failed capture that kept the old
+     * perimeter) leave the field as it is.
+     */
+    @Override
+    public void update(CaptureResult capture) {
+        if (gridTerritory != null) {
+            mask.fillCapturedCells(gridTerritory, REVEALED);
+            return;
+        }
+        float[][] region = capture.getCapturedRegion();
+        if (region != null) {
+            mask.fill(region, REVEALED);
+        }
+    }
+
+    /**
+     * Uploads the part of the mask changed since the last frame.
+     */
+    private final class Control extends AbstractControl {
+
+        @Override
+        protected void controlUpdate(float tpf) {
+        }
+
+        @Override
+        protected void controlRender(RenderManager rm, ViewPort vp) {
+            if (!mask.hasDirtyRegion()) {
+                return;
+            }
+            mask.copyDirtyRegion(staging);
+            stagingImage.setWidth(mask.getDirtyMaxX() - mask.getDirtyMinX() + 1);
+            stagingImage.setHeight(mask.getDirtyMaxY() - mask.getDirtyMinY() + 1);
+            stagingImage.setData(0, staging);
+            rm.getRenderer().modifyTexture(maskTexture, stagingImage, mask.getDirtyMinX(), mask.getDirtyMinY());
+            mask.clearDirtyRegion();
+        }
+    }
+}
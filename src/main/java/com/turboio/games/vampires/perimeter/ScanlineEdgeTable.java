@@ -0,0 +1,116 @@
+package com.turboio.games.vampires.perimeter;
+
+/**
+ * Point-in-polygon structure for {@link Perimeter}. The bounding box is cut into horizontal slabs
+ * and every slab keeps the edges whose y-range overlaps it, so a query only looks at the few edges
+ * crossing the query's scanline instead of walking the whole ring. Points on the boundary (within
+ * the given tolerance) count as inside.
+ */
+final class ScanlineEdgeTable {
+
+    private static final int MAX_SLABS = 1024;
+
+    private final float epsilon;
+    private final float minX;
+    private final float minY;
+    private final float maxX;
+    private final float maxY;
+    private final float slabHeight;
+    private final int slabCount;
+
+    private final float[] ax;
+    private final float[] ay;
+    private final float[] bx;
+    private final float[] by;
+    // Edges of slab s are slabEdges[slabStart[s] .. slabStart[s + 1])
+    private final int[] slabStart;
+    private final int[] slabEdges;
+
+    ScanlineEdgeTable(Perimeter perimeter, float epsilon) {
+        int n = perimeter.size();
+        this.epsilon = epsilon;
+        this.ax = new float[n];
+        this.ay = new float[n];
+        this.bx = new float[n];
+        this.by = new float[n];
+
+        float loX = Float.MAX_VALUE, loY = Float.MAX_VALUE;
+        float hiX = -Float.MAX_VALUE, hiY = -Float.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            ax[i] = perimeter.x(i);
+            ay[i] = perimeter.y(i);
+            bx[i] = perimeter.x(j);
+            by[i] = perimeter.y(j);
+            loX = Math.min(loX, ax[i]);
+            loY = Math.min(loY, ay[i]);
+            hiX = Math.max(hiX, ax[i]);
+            hiY = Math.max(hiY, ay[i]);
+        }
+        this.minX = loX - epsilon;
+        this.minY = loY - epsilon;
+        this.maxX = hiX + epsilon;
+        this.maxY = hiY + epsilon;
+        this.slabCount = Math.max(1, Math.min(n, MAX_SLABS));
+        this.slabHeight = Math.max((maxY - minY) / slabCount, Float.MIN_NORMAL);
+
+        int[] counts = new int[slabCount + 1];
+        for (int i = 0; i < n; i++) {
+            int s0 = slab(Math.min(ay[i], by[i]) - epsilon);
+            int s1 = slab(Math.max(ay[i], by[i]) + epsilon);
+            for (int s = s0; s <= s1; s++) {
+                counts[s + 1]++;
+            }
+        }
+        for (int s = 0; s < slabCount; s++) {
+            counts[s + 1] += counts[s];
+        }
+        this.slabStart = counts.clone();
+        this.slabEdges = new int[counts[slabCount]];
+        for (int i = 0; i < n; i++) {
+            int s0 = slab(Math.min(ay[i], by[i]) - epsilon);
+            int s1 = slab(Math.max(ay[i], by[i]) + epsilon);
+            for (int s = s0; s <= s1; s++) {
+                slabEdges[counts[s]++] = i;
+            }
+        }
+    }
+
+    boolean contains(float x, float y) {
+        if (x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+        int s = slab(y);
+        boolean inside = false;
+        for (int k = slabStart[s]; k < slabStart[s + 1]; k++) {
+            int edge = slabEdges[k];
+            float x0 = ax[edge], y0 = ay[edge];
+            float x1 = bx[edge], y1 = by[edge];
+            if (isOnSegment(x, y, x0, y0, x1, y1)) {
+                return true;
+            }
+            if ((y0 > y) != (y1 > y) && x < (x1 - x0) * (y - y0) / (y1 - y0) + x0) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private boolean isOnSegment(float px, float py, float x0, float y0, float x1, float y1) {
+        float cross = (py - y0) * (x1 - x0) - (px - x0) * (y1 - y0);
+        if (Math.abs(cross) > epsilon) {
+            return false;
+        }
+        float dot = (px - x0) * (x1 - x0) + (py - y0) * (y1 - y0);
+        if (dot < -epsilon) {
+            return false;
+        }
+        float squaredLength = (x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0);
+        return dot <= squaredLength + epsilon;
+    }
+
+    private int slab(float y) {
+        int s = (int) ((y - minY) / slabHeight);
+        return Math.max(0, Math.min(slabCount - 1, s));
+    }
+}
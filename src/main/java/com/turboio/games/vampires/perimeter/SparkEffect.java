@@ -7,137 +7,203 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
-import com.jme3.scene.shape.Quad;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.SplittableRandom;
 
+/**
+ * Red sparks flying off the tip of the drawing path. All sparks share one dynamic mesh with a
+ * quad and per-vertex colours per spark and one material, so they cost a single draw call.
+ * Spark state lives in parallel arrays with the live sparks packed at the front; a dead spark is
+ * replaced by the last live one. Emission is time based, so the spark rate no longer depends on
+ * the frame rate, and there is a hard budget of {@link #MAX_SPARKS}: sparks emitted while the
+ * pool is full are dropped. Nothing is allocated after construction.
+ */
 public class SparkEffect {
-    
-    private static class Spark {
-        Geometry geometry;
-        float age;
-        float lifetime;
-        float startSize;
-        float endSize;
-        Vector3f position;
-        Vector3f velocity;
-        
-        Spark(Geometry geometry, Vector3f position, Vector3f velocity, float lifetime, float startSize, float endSize) {
-            this.geometry = geometry;
-            this.position = position.clone();
-            this.velocity = velocity;
-            this.lifetime = lifetime;
-            this.startSize = startSize;
-            this.endSize = endSize;
-            this.age = 0;
-        }
-    }
-    
+
+    static final int MAX_SPARKS = 96;
+    // Sparks per second while emitting; the old per-frame emission gave about this much at 60 FPS.
+    private static final float EMISSION_RATE = 120f;
+    private static final float Z = 3.8f;
+
     private final Node parentNode;
-    private final AssetManager assetManager;
-    private final List<Spark> activeSparks = new ArrayList<>();
-    private final Material sparkMaterial;
-    
-    public SparkEffect(Node parentNode, AssetManager assetManager) {
+    private final SplittableRandom random;
+    private final Geometry geometry;
+    private final Mesh mesh;
+    private final FloatBuffer positions;
+    private final FloatBuffer colors;
+    private final ShortBuffer indices;
+
+    private final float[] x = new float[MAX_SPARKS];
+    private final float[] y = new float[MAX_SPARKS];
+    private final float[] velocityX = new float[MAX_SPARKS];
+    private final float[] velocityY = new float[MAX_SPARKS];
+    private final float[] age = new float[MAX_SPARKS];
+    private final float[] lifetime = new float[MAX_SPARKS];
+    private final float[] startSize = new float[MAX_SPARKS];
+    private int count;
+    private int meshCount;
+    private float emissionDebt;
+
+    public SparkEffect(Node parentNode, AssetManager assetManager, SplittableRandom random) {
         this.parentNode = parentNode;
-        this.assetManager = assetManager;
-        
-        // Create a reusable material for all sparks - red lightsaber color
-        sparkMaterial = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
-        sparkMaterial.setColor("Color", new ColorRGBA(1f, 0.2f, 0.1f, 1f));
+        this.random = random;
+
+        // One material for all sparks - red lightsaber color comes from the vertex colors
+        Material sparkMaterial = new Material(assetManager, "Common/MatDefs/Misc/Unshaded.j3md");
+        sparkMaterial.setBoolean("VertexColor", true);
         sparkMaterial.setColor("GlowColor", new ColorRGBA(1f, 0.15f, 0.05f, 1f));
         sparkMaterial.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Additive);
         sparkMaterial.getAdditionalRenderState().setDepthTest(false);
         sparkMaterial.getAdditionalRenderState().setDepthWrite(false);
+
+        positions = BufferUtils.createFloatBuffer(MAX_SPARKS * 4 * 3);
+        colors = BufferUtils.createFloatBuffer(MAX_SPARKS * 4 * 4);
+        indices = BufferUtils.createShortBuffer(MAX_SPARKS * 6);
+        for (int i = 0; i < MAX_SPARKS; i++) {
+            short v = (short) (i * 4);
+            indices.put(v).put((short) (v + 1)).put((short) (v + 2));
+            indices.put(v).put((short) (v + 2)).put((short) (v + 3));
+        }
+        positions.limit(0);
+        colors.limit(0);
+        indices.limit(0);
+
+        mesh = new Mesh();
+        mesh.setDynamic();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.Color, 4, colors);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+
+        geometry = new Geometry("Sparks", mesh);
+        geometry.setMaterial(sparkMaterial);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setCullHint(Spatial.CullHint.Always);
     }
-    
-    public void emitSparks(Vector3f position, int count) {
-        for (int i = 0; i < count; i++) {
-            emitSpark(position);
+
+    /**
+     * Emits sparks at the given position for {@code tpf} seconds' worth of the emission rate.
+     */
+    public void emit(Vector3f position, float tpf) {
+        emissionDebt += EMISSION_RATE * tpf;
+        int sparks = (int) emissionDebt;
+        emissionDebt -= sparks;
+        emitSparks(position, sparks);
+    }
+
+    public void emitSparks(Vector3f position, int sparks) {
+        if (sparks > 0 && geometry.getParent() == null) {
+            parentNode.attachChild(geometry);
+        }
+        for (int i = 0; i < sparks && count < MAX_SPARKS; i++) {
+            emitSpark(position.x, position.y);
         }
     }
-    
-    private void emitSpark(Vector3f position) {
+
+    private void emitSpark(float px, float py) {
+        int i = count++;
         // Quick, small sparks
-        float lifetime = 0.15f + (float) Math.random() * 0.15f;
-        float startSize = 3f + (float) Math.random() * 3f;
-        float endSize = startSize * 0.5f;
-        
+        lifetime[i] = 0.15f + (float) random.nextDouble() * 0.15f;
+        startSize[i] = 3f + (float) random.nextDouble() * 3f;
+        age[i] = 0f;
+        x[i] = px;
+        y[i] = py;
+
         // Random velocity in all directions
-        float angle = (float) (Math.random() * Math.PI * 2);
-        float speed = 20f + (float) Math.random() * 30f;
-        Vector3f velocity = new Vector3f(
-            (float) Math.cos(angle) * speed,
-            (float) Math.sin(angle) * speed,
-            0
-        );
-        
-        // Create a small quad for the spark
-        Quad quad = new Quad(1, 1);
-        Geometry sparkGeom = new Geometry("Spark", quad);
-        sparkGeom.setMaterial(sparkMaterial.clone());
-        sparkGeom.setQueueBucket(RenderQueue.Bucket.Gui);
-        
-        // Position it centered on the spark location
-        sparkGeom.setLocalTranslation(position.x - startSize / 2, position.y - startSize / 2, 3.8f);
-        sparkGeom.setLocalScale(startSize, startSize, 1);
-        
-        parentNode.attachChild(sparkGeom);
-        
-        Spark spark = new Spark(sparkGeom, position, velocity, lifetime, startSize, endSize);
-        activeSparks.add(spark);
+        float angle = (float) (random.nextDouble() * Math.PI * 2);
+        float speed = 20f + (float) random.nextDouble() * 30f;
+        velocityX[i] = (float) Math.cos(angle) * speed;
+        velocityY[i] = (float) Math.sin(angle) * speed;
     }
-    
+
     public void update(float tpf) {
-        Iterator<Spark> iterator = activeSparks.iterator();
-        while (iterator.hasNext()) {
-            Spark spark = iterator.next();
-            spark.age += tpf;
-            
-            if (spark.age >= spark.lifetime) {
-                // Remove dead spark
-                spark.geometry.removeFromParent();
-                iterator.remove();
-            } else {
-                // Update spark appearance
-                float progress = spark.age / spark.lifetime;
-                
-                // Fade out quickly
-                float alpha = 1f - progress;
-                
-                // Shrink as it fades
-                float size = spark.startSize + (spark.endSize - spark.startSize) * progress;
-                
-                // Move spark based on velocity
-                spark.position.x += spark.velocity.x * tpf;
-                spark.position.y += spark.velocity.y * tpf;
-                
-                // Update color with fade - keep red lightsaber color
-                Material mat = spark.geometry.getMaterial();
-                ColorRGBA color = new ColorRGBA(1f, 0.2f - progress * 0.1f, 0.1f - progress * 0.05f, alpha);
-                mat.setColor("Color", color);
-                
-                ColorRGBA glowColor = new ColorRGBA(1f, 0.15f - progress * 0.05f, 0.05f, alpha);
-                mat.setColor("GlowColor", glowColor);
-                
-                // Update size and position
-                spark.geometry.setLocalScale(size, size, 1);
-                spark.geometry.setLocalTranslation(
-                    spark.position.x - size / 2,
-                    spark.position.y - size / 2,
-                    3.8f
-                );
+        int i = 0;
+        while (i < count) {
+            age[i] += tpf;
+            if (age[i] >= lifetime[i]) {
+                // Remove dead spark by moving the last live one into its slot
+                count--;
+                x[i] = x[count];
+                y[i] = y[count];
+                velocityX[i] = velocityX[count];
+                velocityY[i] = velocityY[count];
+                age[i] = age[count];
+                lifetime[i] = lifetime[count];
+                startSize[i] = startSize[count];
+                continue;
             }
+            // Move spark based on velocity
+            x[i] += velocityX[i] * tpf;
+            y[i] += velocityY[i] * tpf;
+            i++;
         }
+        writeMesh();
     }
-    
+
     public void clear() {
-        for (Spark spark : activeSparks) {
-            spark.geometry.removeFromParent();
+        count = 0;
+        emissionDebt = 0f;
+        writeMesh();
+        geometry.removeFromParent();
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    Geometry getGeometry() {
+        return geometry;
+    }
+
+    private void writeMesh() {
+        if (count == 0 && meshCount == 0) {
+            return;
+        }
+        positions.clear();
+        colors.clear();
+        for (int i = 0; i < count; i++) {
+            float progress = age[i] / lifetime[i];
+            // Shrink as it fades
+            float half = startSize[i] * (1f - 0.5f * progress) / 2f;
+            float x0 = x[i] - half, x1 = x[i] + half;
+            float y0 = y[i] - half, y1 = y[i] + half;
+            positions.put(x0).put(y0).put(Z);
+            positions.put(x1).put(y0).put(Z);
+            positions.put(x1).put(y1).put(Z);
+            positions.put(x0).put(y1).put(Z);
+
+            // Fade out quickly - keep red lightsaber color
+            float g = 0.2f - progress * 0.1f;
+            float b = 0.1f - progress * 0.05f;
+            float alpha = 1f - progress;
+            for (int v = 0; v < 4; v++) {
+                colors.put(1f).put(g).put(b).put(alpha);
+            }
+        }
+        positions.flip();
+        colors.flip();
+
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.getBuffer(VertexBuffer.Type.Color).updateData(colors);
+        if (count != meshCount) {
+            // The index pattern never changes; only how much of it is drawn does.
+            indices.limit(count * 6);
+            mesh.getBuffer(VertexBuffer.Type.Index).updateData(indices);
+            mesh.updateCounts();
+            meshCount = count;
+        }
+        if (count == 0) {
+            geometry.setCullHint(Spatial.CullHint.Always);
+            return;
         }
-        activeSparks.clear();
+        mesh.updateBound();
+        geometry.updateModelBound();
+        geometry.setCullHint(Spatial.CullHint.Never);
     }
 }
@@ -0,0 +1,110 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.material.Material;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * {@link DayField} that draws the textured area as a triangulation of the perimeter. One geometry,
+ * material and set of direct buffers live for the whole level; each capture rewrites the buffers in
+ * place and updates the counts, so there is no scene-graph churn and, once the buffers are big
+ * enough, no allocation. Buffers only grow, doubling when a perimeter outgrows them.
+ * <p>
+ * Triangulations are index triples into the perimeter's own vertices, so they can be produced on
+ * a worker thread by {@link PerimeterRenderer#triangulate(Perimeter)} and applied here on the
+ * render thread.
+ */
+public final class TriangulatedDayField implements DayField {
+
+    private final Geometry geometry;
+    private final Mesh mesh;
+    private final float screenWidth;
+    private final float screenHeight;
+
+    private FloatBuffer positions;
+    private FloatBuffer texCoords;
+    private IntBuffer indices;
+
+    TriangulatedDayField(Material material, float screenWidth, float screenHeight) {
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        this.positions = BufferUtils.createFloatBuffer(3 * 64);
+        this.texCoords = BufferUtils.createFloatBuffer(2 * 64);
+        this.indices = BufferUtils.createIntBuffer(3 * 64);
+
+        mesh = new Mesh();
+        mesh.setDynamic();
+        positions.limit(0);
+        texCoords.limit(0);
+        indices.limit(0);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, texCoords);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+
+        geometry = new Geometry("DayField", mesh);
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setLocalTranslation(0, 0, 1f);
+    }
+
+    @Override
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    @Override
+    public void update(CaptureResult capture) {
+        update(capture.getPerimeter(), capture.getDayFieldTriangles());
+    }
+
+    /**
+     * Shows the given perimeter. {@code triangles} holds vertex index triples into the perimeter;
+     * if it is null (the triangulation failed) the previous field is left as it is. Must be
+     * called on the render thread.
+     */
+    public void update(Perimeter perimeter, int[] triangles) {
+        if (triangles == null) {
+            return;
+        }
+        int vertexCount = perimeter.size();
+
+        if (positions.capacity() < vertexCount * 3) {
+            int capacity = Math.max(vertexCount, positions.capacity() / 3 * 2);
+            positions = BufferUtils.createFloatBuffer(capacity * 3);
+            texCoords = BufferUtils.createFloatBuffer(capacity * 2);
+        }
+        if (indices.capacity() < triangles.length) {
+            indices = BufferUtils.createIntBuffer(Math.max(triangles.length, indices.capacity() * 2));
+        }
+
+        positions.clear();
+        texCoords.clear();
+        for (int i = 0; i < vertexCount; i++) {
+            float x = perimeter.x(i);
+            float y = perimeter.y(i);
+            positions.put(x).put(y).put(0f);
+            // Map screen coordinates to the 0-1 range so the texture lines up with the screen.
+            texCoords.put(x / screenWidth).put(y / screenHeight);
+        }
+        positions.flip();
+        texCoords.flip();
+        indices.clear();
+        indices.put(triangles);
+        indices.flip();
+
+        // Same buffers as last time unless they had to grow; either way the vertex buffers just
+        // get flagged for re-upload.
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.getBuffer(VertexBuffer.Type.TexCoord).updateData(texCoords);
+        mesh.getBuffer(VertexBuffer.Type.Index).updateData(indices);
+        mesh.updateCounts();
+        mesh.updateBound();
+        geometry.updateModelBound();
+    }
+}
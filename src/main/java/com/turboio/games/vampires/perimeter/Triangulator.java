@@ -0,0 +1,14 @@
+package com.turboio.games.vampires.perimeter;
+
+/**
+ * Triangulates a perimeter for the {@link TriangulatedDayField}. Implementations must be safe to call from
+ * the capture worker thread.
+ */
+public interface Triangulator {
+
+    /**
+     * Returns vertex index triples into the perimeter, or null if the perimeter could not be
+     * triangulated.
+     */
+    int[] triangulate(Perimeter perimeter);
+}
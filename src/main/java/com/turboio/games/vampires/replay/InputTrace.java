@@ -0,0 +1,256 @@
+package com.turboio.games.vampires.replay;
+
+import com.turboio.games.vampires.sim.LevelInput;
+import com.turboio.games.vampires.sim.LevelSimulation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A recorded level run: what is needed to set the level up again (its resource path, the seed of
+ * its random streams, the playfield size, the step rate and the actors' radii, which the view
+ * takes from the sprites) and the player's input for every {@linkplain LevelSimulation#getTick()
+ * tick}. Together they reproduce the run exactly; see {@link ReplayPlayer}.
+ * <p>
+ * The input of a tick is a bitmask of the held direction keys and the draw toggle. Inputs change
+ * rarely compared to the tick rate, so they are kept run-length encoded: one mask and one end tick
+ * per run of equal inputs. On disk a run is the mask byte followed by its length as a variable
+ * length integer, usually two or three bytes for a second or more of play.
+ * <p>
+ * The outcome and score the run ended with are stored as well, so a replay can check it still
+ * plays out the same.
+ */
+public final class InputTrace {
+
+    public static final int UP = 1;
+    public static final int DOWN = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int DRAW = 1 << 4;
+
+    public static final String FILE_SUFFIX = ".rec";
+    // "REC1"
+    private static final int MAGIC = 0x52454331;
+
+    private final String levelId;
+    private final long seed;
+    private final float width;
+    private final float height;
+    private final float stepsPerSecond;
+    private final float playerRadius;
+    private final float[] enemyRadii;
+
+    private byte[] masks = new byte[64];
+    // Exclusive end tick of every run.
+    private int[] ends = new int[64];
+    private int runCount;
+
+    private LevelSimulation.Outcome outcome;
+    private double score;
+
+    public InputTrace(String levelId, long seed, float width, float height, float stepsPerSecond,
+                      float playerRadius, float[] enemyRadii) {
+        this.levelId = levelId;
+        this.seed = seed;
+        this.width = width;
+        this.height = height;
+        this.stepsPerSecond = stepsPerSecond;
+        this.playerRadius = playerRadius;
+        this.enemyRadii = enemyRadii.clone();
+    }
+
+    /**
+     * Starts a trace of the given simulation, which has not been stepped yet.
+     */
+    public static InputTrace of(String levelId, LevelSimulation simulation, float width, float height, float stepsPerSecond) {
+        float[] enemyRadii = new float[simulation.getEnemies().size()];
+        for (int i = 0; i < enemyRadii.length; i++) {
+            enemyRadii[i] = simulation.getEnemies().get(i).getRadius();
+        }
+        return new InputTrace(levelId, simulation.getSeed(), width, height, stepsPerSecond,
+                simulation.getPlayer().getRadius(), enemyRadii);
+    }
+
+    public static int mask(LevelInput input) {
+        return (input.up ? UP : 0) | (input.down ? DOWN : 0) | (input.left ? LEFT : 0)
+                | (input.right ? RIGHT : 0) | (input.toggleDrawing ? DRAW : 0);
+    }
+
+    public static void apply(int mask, LevelInput input) {
+        input.up = (mask & UP) != 0;
+        input.down = (mask & DOWN) != 0;
+        input.left = (mask & LEFT) != 0;
+        input.right = (mask & RIGHT) != 0;
+        input.toggleDrawing = (mask & DRAW) != 0;
+    }
+
+    /**
+     * Appends the input of the next tick.
+     */
+    public void append(int mask) {
+        if (runCount > 0 && masks[runCount - 1] == (byte) mask) {
+            ends[runCount - 1]++;
+            return;
+        }
+        addRun(mask, getTickCount() + 1);
+    }
+
+    /**
+     * The input of the given tick, which must be below {@link #getTickCount()}.
+     */
+    public int getMask(int tick) {
+        int run = Arrays.binarySearch(ends, 0, runCount, tick);
+        // An exact hit is the end of a run, so the tick belongs to the next one.
+        run = run >= 0 ? run + 1 : -run - 1;
+        if (tick < 0 || run >= runCount) {
+            throw new IndexOutOfBoundsException("Tick " + tick + " of " + getTickCount());
+        }
+        return masks[run];
+    }
+
+    public int getTickCount() {
+        return runCount == 0 ? 0 : ends[runCount - 1];
+    }
+
+    public int getRunCount() {
+        return runCount;
+    }
+
+    public String getLevelId() {
+        return levelId;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public float getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    public float getPlayerRadius() {
+        return playerRadius;
+    }
+
+    public float[] getEnemyRadii() {
+        return enemyRadii.clone();
+    }
+
+    /**
+     * How the recorded run ended, or null if it was abandoned.
+     */
+    public LevelSimulation.Outcome getOutcome() {
+        return outcome;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setResult(LevelSimulation.Outcome outcome, double score) {
+        this.outcome = outcome;
+        this.score = score;
+    }
+
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeUTF(levelId);
+        out.writeLong(seed);
+        out.writeFloat(width);
+        out.writeFloat(height);
+        out.writeFloat(stepsPerSecond);
+        out.writeFloat(playerRadius);
+        writeVarInt(out, enemyRadii.length);
+        for (float radius : enemyRadii) {
+            out.writeFloat(radius);
+        }
+        out.writeByte(outcome == null ? 0 : outcome.ordinal() + 1);
+        out.writeDouble(score);
+        writeVarInt(out, runCount);
+        int start = 0;
+        for (int i = 0; i < runCount; i++) {
+            out.writeByte(masks[i]);
+            writeVarInt(out, ends[i] - start);
+            start = ends[i];
+        }
+        out.flush();
+    }
+
+    public static InputTrace read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an input trace");
+        }
+        String levelId = in.readUTF();
+        long seed = in.readLong();
+        float width = in.readFloat();
+        float height = in.readFloat();
+        float stepsPerSecond = in.readFloat();
+        float playerRadius = in.readFloat();
+        float[] enemyRadii = new float[readVarInt(in)];
+        for (int i = 0; i < enemyRadii.length; i++) {
+            enemyRadii[i] = in.readFloat();
+        }
+        InputTrace trace = new InputTrace(levelId, seed, width, height, stepsPerSecond, playerRadius, enemyRadii);
+        int outcome = in.readUnsignedByte();
+        List<LevelSimulation.Outcome> outcomes = List.of(LevelSimulation.Outcome.values());
+        if (outcome > outcomes.size()) {
+            throw new IOException("Unknown outcome " + outcome + " in input trace");
+        }
+        trace.setResult(outcome == 0 ? null : outcomes.get(outcome - 1), in.readDouble());
+        int runs = readVarInt(in);
+        for (int i = 0; i < runs; i++) {
+            int mask = in.readUnsignedByte();
+            int length = readVarInt(in);
+            if (length <= 0) {
+                throw new IOException("Empty run in input trace");
+            }
+            trace.addRun(mask, trace.getTickCount() + length);
+        }
+        return trace;
+    }
+
+    private void addRun(int mask, int end) {
+        if (runCount == masks.length) {
+            masks = Arrays.copyOf(masks, runCount * 2);
+            ends = Arrays.copyOf(ends, runCount * 2);
+        }
+        masks[runCount] = (byte) mask;
+        ends[runCount] = end;
+        runCount++;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed length in input trace");
+    }
+}
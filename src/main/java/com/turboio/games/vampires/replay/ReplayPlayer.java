@@ -0,0 +1,94 @@
+package com.turboio.games.vampires.replay;
+
+import com.turboio.games.vampires.level.LevelConfig;
+import com.turboio.games.vampires.level.LevelLoader;
+import com.turboio.games.vampires.sim.LevelInput;
+import com.turboio.games.vampires.sim.LevelSimulation;
+
+import java.io.IOException;
+
+/**
+ * Feeds an {@link InputTrace} back through a {@link LevelSimulation}. The view uses it to show a
+ * replay at realtime; {@link #run} plays one headless and as fast as the simulation goes.
+ */
+public class ReplayPlayer {
+
+    private final InputTrace trace;
+
+    public ReplayPlayer(InputTrace trace) {
+        this.trace = trace;
+    }
+
+    public InputTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Sets up the recorded level with the recorded seed, playfield and radii.
+     */
+    public LevelSimulation createSimulation(LevelConfig config) {
+        LevelSimulation simulation = new LevelSimulation(config, trace.getWidth(), trace.getHeight(), trace.getSeed());
+        restoreRadii(simulation);
+        return simulation;
+    }
+
+    /**
+     * Gives the player and the enemies the radii they had in the recording, which a view would
+     * otherwise take from its sprites.
+     */
+    public void restoreRadii(LevelSimulation simulation) {
+        float[] enemyRadii = trace.getEnemyRadii();
+        if (enemyRadii.length != simulation.getEnemies().size()) {
+            throw new IllegalStateException("Recorded " + enemyRadii.length + " enemies, but "
+                    + trace.getLevelId() + " has " + simulation.getEnemies().size());
+        }
+        simulation.getPlayer().setRadius(trace.getPlayerRadius());
+        for (int i = 0; i < enemyRadii.length; i++) {
+            simulation.getEnemies().get(i).setRadius(enemyRadii[i]);
+        }
+    }
+
+    /**
+     * Sets the input to the recorded one for the simulation's next tick. Returns false, leaving
+     * the input alone, once the recording is used up.
+     */
+    public boolean applyInput(LevelSimulation simulation, LevelInput input) {
+        int tick = simulation.getTick();
+        if (tick >= trace.getTickCount()) {
+            return false;
+        }
+        InputTrace.apply(trace.getMask(tick), input);
+        return true;
+    }
+
+    /**
+     * The step length the run was recorded with.
+     */
+    public float getStep() {
+        return 1f / trace.getStepsPerSecond();
+    }
+
+    /**
+     * Loads the recorded level and plays the whole recording on it, without rendering and
+     * unthrottled. Captures are solved synchronously.
+     */
+    public static LevelSimulation run(InputTrace trace) throws IOException {
+        ReplayPlayer player = new ReplayPlayer(trace);
+        LevelSimulation simulation = player.createSimulation(LevelLoader.load(trace.getLevelId()));
+        LevelInput input = new LevelInput();
+        float step = player.getStep();
+        while (simulation.getOutcome() == null && player.applyInput(simulation, input)) {
+            simulation.step(step, input);
+        }
+        return simulation;
+    }
+
+    /**
+     * Whether a replayed simulation ended the way the recording did. Replays are exact, so the
+     * scores have to be equal: every capture solver, including the view's speculating one,
+     * commits the same result for the same path.
+     */
+    public static boolean matches(InputTrace trace, LevelSimulation simulation) {
+        return trace.getOutcome() == simulation.getOutcome() && trace.getScore() == simulation.getScore();
+    }
+}
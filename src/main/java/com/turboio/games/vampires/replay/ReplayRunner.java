@@ -0,0 +1,104 @@
+package com.turboio.games.vampires.replay;
+
+import com.turboio.games.vampires.App;
+import com.turboio.games.vampires.level.LevelLoader;
+import com.turboio.games.vampires.sim.LevelSimulation;
+import com.turboio.games.vampires.states.LevelAppState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plays recorded runs. By default every trace given, or found in the given directories, is
+ * replayed headless and unthrottled, and checked against the outcome and score it was recorded
+ * with; the exit code is 1 if any of them played out differently. With {@code --realtime} a
+ * single trace is shown in the game window instead.
+ */
+public class ReplayRunner {
+
+    public static void main(String[] args) throws IOException {
+        boolean realtime = args.length > 0 && args[0].equals("--realtime");
+        List<Path> traces = findTraces(args, realtime ? 1 : 0);
+        if (traces.isEmpty() || (realtime && traces.size() != 1)) {
+            System.err.println("Usage: ReplayRunner <trace or directory>... | ReplayRunner --realtime <trace>");
+            System.exit(1);
+        }
+        if (realtime) {
+            showRealtime(read(traces.get(0)));
+            return;
+        }
+
+        int mismatches = 0;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for (Path file : traces) {
+            InputTrace trace;
+            LevelSimulation simulation;
+            try {
+                trace = read(file);
+                simulation = ReplayPlayer.run(trace);
+            } catch (IOException | RuntimeException e) {
+                System.err.println(file + ": could not replay: " + e.getMessage());
+                mismatches++;
+                continue;
+            }
+            totalTicks += trace.getTickCount();
+            boolean matches = ReplayPlayer.matches(trace, simulation);
+            if (!matches) {
+                mismatches++;
+            }
+            System.out.println(String.format("%s: %s, %d ticks, %s, score %.0f%s", file, trace.getLevelId(),
+                    trace.getTickCount(), simulation.getOutcome(), simulation.getScore(),
+                    matches ? "" : String.format(" - MISMATCH, recorded %s, score %.0f", trace.getOutcome(), trace.getScore())));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("Replayed %d traces, %d ticks in %.2f s (%.0f ticks/s), %d mismatches",
+                traces.size(), totalTicks, seconds, totalTicks / Math.max(seconds, 1e-9), mismatches));
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void showRealtime(InputTrace trace) throws IOException {
+        ReplayPlayer player = new ReplayPlayer(trace);
+        App[] app = new App[1];
+        LevelAppState level = new LevelAppState(player, LevelLoader.load(trace.getLevelId()), (outcome, score, percentage) -> {
+            System.out.println(String.format("Replay ended: %s, score %.0f (recorded %s, score %.0f)",
+                    outcome, score, trace.getOutcome(), trace.getScore()));
+            app[0].stop();
+        });
+        app[0] = new App(level);
+        App.launch(app[0]);
+    }
+
+    private static List<Path> findTraces(String[] args, int first) throws IOException {
+        List<Path> traces = new ArrayList<>();
+        for (int i = first; i < args.length; i++) {
+            Path path = Paths.get(args[i]);
+            if (!Files.isDirectory(path)) {
+                traces.add(path);
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                traces.addAll(files
+                        .filter(file -> file.getFileName().toString().endsWith(InputTrace.FILE_SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return traces;
+    }
+
+    private static InputTrace read(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return InputTrace.read(stream);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.perimeter.Perimeter;
+
+import java.util.SplittableRandom;
+
+/**
+ * Flies in a straight line from a random start direction and reflects off the nearest wall
+ * whenever it comes within its radius of one.
+ */
+public class BouncingMovement implements EnemyMovement {
+
+    private final SplittableRandom random;
+
+    private final Vector3f velocity = new Vector3f();
+
+    public BouncingMovement(SplittableRandom random) {
+        this.random = random;
+        chooseNewDirection();
+    }
+
+    @Override
+    public void step(Enemy enemy, Perimeter perimeter, float dt) {
+        Vector3f currentPos = enemy.getPosition();
+        Vector3f step = velocity.mult(enemy.getSpeed() * dt);
+        Vector3f nextPos = currentPos.add(step);
+
+        float radius = enemy.getRadius();
+
+        // Find the nearest wall within the enemy radius to bounce off of.
+        int wall = perimeter.getEdgeIndex().nearestEdge(nextPos.x, nextPos.y, radius);
+        if (wall >= 0) {
+            Vector3f wallA = perimeter.getVertex(wall, new Vector3f());
+            Vector3f wallB = perimeter.getVertex((wall + 1) % perimeter.size(), new Vector3f());
+            Vector3f wallToReflect = wallB.subtract(wallA);
+            if (wallToReflect.lengthSquared() > 0.0001f) {
+                // 1. Calculate the wall normal.
+                Vector3f wallNormal = new Vector3f(-wallToReflect.y, wallToReflect.x, 0).normalizeLocal();
+
+                // 2. Ensure the normal points inwards.
+                Vector3f projection = projectOnSegment(nextPos, wallA, wallB);
+                Vector3f testPoint = projection.add(wallNormal.mult(0.1f));
+                if (!perimeter.contains(testPoint)) {
+                    wallNormal.negateLocal();
+                }
+
+                // 3. Reflect velocity (the part that worked well).
+                float dot = velocity.dot(wallNormal);
+                velocity.subtractLocal(wallNormal.mult(2 * dot));
+
+                // 4. TARGETED FIX: Correct the position to prevent tunneling.
+                // Set position to the point of impact, pushed back by the radius.
+                nextPos = projection.add(wallNormal.mult(radius));
+            }
+        }
+
+        currentPos.set(nextPos.x, nextPos.y, 0);
+    }
+
+    private void chooseNewDirection() {
+        do {
+            velocity.set(random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f, 0f);
+        } while (velocity.lengthSquared() == 0f);
+        velocity.normalizeLocal();
+    }
+
+    private Vector3f projectOnSegment(Vector3f point, Vector3f start, Vector3f end) {
+        Vector3f seg = end.subtract(start);
+        Vector3f toPoint = point.subtract(start);
+        float segLenSq = seg.lengthSquared();
+        if (segLenSq == 0f) {
+            return start.clone();
+        }
+        float t = Math.max(0f, Math.min(1f, toPoint.dot(seg) / segLenSq));
+        return start.add(seg.mult(t));
+    }
+}
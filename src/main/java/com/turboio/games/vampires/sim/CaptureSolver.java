@@ -0,0 +1,20 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.perimeter.CaptureResult;
+import com.turboio.games.vampires.perimeter.Perimeter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes the capture closed by a drawing path. The result may arrive later, for instance from a
+ * worker thread; a {@link LevelSimulation} does not advance while it waits for one, so when a
+ * capture lands never changes the outcome of a run.
+ */
+public interface CaptureSolver {
+    /**
+     * Starts computing the capture. The arguments are owned by the solver from now on.
+     */
+    CompletableFuture<CaptureResult> solve(Perimeter perimeter, List<Vector3f> path, Vector3f enemyPosition);
+}
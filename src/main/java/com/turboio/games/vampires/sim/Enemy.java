@@ -0,0 +1,56 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+
+/**
+ * An enemy of a {@link LevelSimulation}: a circle moving inside the perimeter.
+ */
+public class Enemy {
+    private final Vector3f position;
+    private final Vector3f previousPosition;
+    private final EnemyMovement movement;
+    private float radius;
+    private float speed;
+
+    public Enemy(float x, float y, float radius, float speed, EnemyMovement movement) {
+        this.position = new Vector3f(x, y, 0);
+        this.previousPosition = new Vector3f(x, y, 0);
+        this.radius = radius;
+        this.speed = speed;
+        this.movement = movement;
+    }
+
+    /**
+     * The current position. Movements update it in place.
+     */
+    public Vector3f getPosition() {
+        return position;
+    }
+
+    /**
+     * The position before the last step, for interpolating between steps.
+     */
+    public Vector3f getPreviousPosition() {
+        return previousPosition;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public void setRadius(float radius) {
+        this.radius = radius;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+    public EnemyMovement getMovement() {
+        return movement;
+    }
+}
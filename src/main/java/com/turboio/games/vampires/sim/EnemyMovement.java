@@ -0,0 +1,13 @@
+package com.turboio.games.vampires.sim;
+
+import com.turboio.games.vampires.perimeter.Perimeter;
+
+/**
+ * How an enemy moves inside the perimeter. Each enemy has its own instance, which may keep state
+ * between steps. Level configs name implementations by class; they need a public constructor
+ * taking the enemy's {@link java.util.SplittableRandom} stream, which must be their only source
+ * of randomness.
+ */
+public interface EnemyMovement {
+    void step(Enemy enemy, Perimeter perimeter, float dt);
+}
@@ -0,0 +1,50 @@
+package com.turboio.games.vampires.sim;
+
+/**
+ * Turns variable frame times into a whole number of fixed simulation steps. Frame time collects
+ * in an accumulator and is spent one step at a time; what is left over carries into the next
+ * frame and tells the view how far it is between the last two simulated states. After a long
+ * frame at most {@code maxStepsPerFrame} steps are run and the rest of the backlog is dropped,
+ * so a spike slows the game down for a moment instead of making every following frame slower.
+ */
+public final class FixedTimestep {
+
+    private final double step;
+    private final int maxStepsPerFrame;
+    private double accumulator;
+
+    public FixedTimestep(float stepsPerSecond, int maxStepsPerFrame) {
+        this.step = 1.0 / stepsPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Adds a frame's time and returns how many steps to simulate for it.
+     */
+    public int advance(float tpf) {
+        accumulator += tpf;
+        int steps = (int) (accumulator / step);
+        accumulator -= steps * step;
+        return Math.min(steps, maxStepsPerFrame);
+    }
+
+    /**
+     * The step length in seconds.
+     */
+    public float getStep() {
+        return (float) step;
+    }
+
+    /**
+     * The time left in the accumulator as a fraction of a step, for blending from the previous
+     * simulated state (0) towards the latest one (1). Drawing that blend lags the simulation by
+     * up to one step, but moves smoothly at any frame rate.
+     */
+    public float getAlpha() {
+        return (float) (accumulator / step);
+    }
+
+    public void reset() {
+        accumulator = 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.turboio.games.vampires.sim;
+
+/**
+ * The player's input for one simulation step: the held direction keys, and whether the draw key
+ * was released since the last step that advanced the level.
+ */
+public class LevelInput {
+    public boolean up, down, left, right;
+    public boolean toggleDrawing;
+
+    public void clear() {
+        up = down = left = right = false;
+        toggleDrawing = false;
+    }
+}
@@ -0,0 +1,382 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.level.EnemyConfig;
+import com.turboio.games.vampires.level.LevelConfig;
+import com.turboio.games.vampires.perimeter.CaptureResult;
+import com.turboio.games.vampires.perimeter.GridTerritory;
+import com.turboio.games.vampires.perimeter.Perimeter;
+import com.turboio.games.vampires.perimeter.PerimeterManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The gameplay of one level as plain data: the perimeter, the player and their drawing path, the
+ * enemies, and the score. It knows nothing about the scene graph or the renderer, so a level can
+ * be simulated headless and faster than realtime; {@code LevelAppState} is a view that steps it
+ * and mirrors it into spatials.
+ * <p>
+ * Captures go through a {@link CaptureSolver}. By default they are computed synchronously within
+ * the step; a view can solve them on a worker instead. While a capture is pending the simulation
+ * does not advance at all, so given the same inputs a run always plays out the same, whichever
+ * solver is used.
+ * <p>
+ * All randomness comes from the level's {@link RandomStreams}: every enemy gets its own stream,
+ * and views take theirs from the same seed. Together with the inputs the seed fully determines a
+ * run.
+ */
+public class LevelSimulation {
+
+    public enum Outcome { WIN, LOSE }
+
+    /**
+     * Gameplay events a view may want to react to, for instance with sounds or mesh updates.
+     * Called from within {@link #step}.
+     */
+    public interface Listener {
+        default void onDrawingStarted() {
+        }
+
+        /**
+         * A capture was committed. {@code changed} is false when it left the perimeter as it was.
+         */
+        default void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+        }
+
+        default void onDrawingEnded() {
+        }
+    }
+
+    private static final Logger logger = Logger.getLogger(LevelSimulation.class.getName());
+    private static final float DEFAULT_INSET = 64f;
+    private static final float DEFAULT_ENEMY_SPEED = 200f;
+    private static final float DEFAULT_ENEMY_RADIUS = 32f;
+    private static final double WIN_REMAINING_FRACTION = 0.1;
+
+    private final PerimeterManager perimeterManager = new PerimeterManager();
+    private final RandomStreams randomStreams;
+    private final Player player;
+    private final List<Enemy> enemies = new ArrayList<>();
+    private final List<Enemy> enemiesView = Collections.unmodifiableList(enemies);
+    private CaptureSolver captureSolver;
+    private Listener listener = new Listener() {
+    };
+
+    // Only the current perimeter is kept.
+    private Perimeter perimeter;
+    // Optional raster area counter; when present it counts the area and score, while the perimeter
+    // still drives movement, collisions and containment.
+    private final GridTerritory gridTerritory;
+    private final double originalPerimeterArea;
+    private double currentPerimeterArea;
+    private double score;
+    private Outcome outcome;
+    private int tick;
+
+    private CompletableFuture<CaptureResult> pendingCapture;
+    private List<Vector3f> pendingPath;
+    private Vector3f pendingEnemyPosition;
+
+    /**
+     * Sets up the level described by the config on a playfield of the given size, which is used
+     * for the default perimeter and the grid territory. Uses the config's seed, or a fresh one
+     * when it has none.
+     */
+    public LevelSimulation(LevelConfig config, float width, float height) {
+        this(config, width, height, config.getSeed() != null ? config.getSeed() : new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Sets up the level with the given seed, for instance a run seed or a recorded one.
+     */
+    public LevelSimulation(LevelConfig config, float width, float height, long seed) {
+        randomStreams = new RandomStreams(seed);
+        if (config.getSimplificationTolerance() != null) {
+            perimeterManager.setSimplificationTolerance(config.getSimplificationTolerance());
+        }
+        captureSolver = (p, path, enemyPosition) -> {
+            try {
+                return CompletableFuture.completedFuture(perimeterManager.calculateCapture(p, path, enemyPosition));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+
+        List<Vector3f> vertices = new ArrayList<>();
+        if (config.getPerimeterVertices() != null && !config.getPerimeterVertices().isEmpty()) {
+            config.getPerimeterVertices().forEach(v -> vertices.add(new Vector3f(v.getX(), v.getY(), 0)));
+        } else {
+            vertices.add(new Vector3f(DEFAULT_INSET, DEFAULT_INSET, 0));
+            vertices.add(new Vector3f(width - DEFAULT_INSET, DEFAULT_INSET, 0));
+            vertices.add(new Vector3f(width - DEFAULT_INSET, height - DEFAULT_INSET - 50, 0));
+            vertices.add(new Vector3f(DEFAULT_INSET, height - DEFAULT_INSET - 50, 0));
+        }
+        perimeter = new Perimeter(vertices);
+        if ("grid".equalsIgnoreCase(config.getTerritory())) {
+            float cellSize = config.getGridCellSize() > 0 ? config.getGridCellSize() : 4f;
+            gridTerritory = new GridTerritory(perimeter, width, height, cellSize);
+            originalPerimeterArea = gridTerritory.getOpenArea();
+        } else {
+            gridTerritory = null;
+            originalPerimeterArea = perimeter.getArea();
+        }
+        currentPerimeterArea = originalPerimeterArea;
+
+        player = new Player(perimeter, perimeterManager, perimeter.x(0), perimeter.y(0));
+        if (config.getEnemies() != null) {
+            for (EnemyConfig enemyConfig : config.getEnemies()) {
+                SplittableRandom random = randomStreams.stream("enemy-" + enemies.size());
+                float radius = enemyConfig.getRadius() > 0 ? enemyConfig.getRadius() : DEFAULT_ENEMY_RADIUS;
+                float speed = enemyConfig.getSpeed() > 0 ? enemyConfig.getSpeed() : DEFAULT_ENEMY_SPEED;
+                enemies.add(new Enemy(enemyConfig.getSpawnX(), enemyConfig.getSpawnY(), radius, speed,
+                        createMovement(enemyConfig.getMovementClass(), random)));
+            }
+        }
+    }
+
+    private static EnemyMovement createMovement(String movementClass, SplittableRandom random) {
+        if (movementClass == null) {
+            return new WanderingMovement(random);
+        }
+        try {
+            Class<?> clazz = Class.forName(movementClass);
+            return (EnemyMovement) clazz.getConstructor(SplittableRandom.class).newInstance(random);
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
+            throw new RuntimeException("Could not create enemy movement: " + movementClass, e);
+        }
+    }
+
+    public RandomStreams getRandomStreams() {
+        return randomStreams;
+    }
+
+    public long getSeed() {
+        return randomStreams.getSeed();
+    }
+
+    public void setCaptureSolver(CaptureSolver captureSolver) {
+        this.captureSolver = captureSolver;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Advances the level by {@code dt} seconds. The input's drawing toggle is consumed by the
+     * first step that counts as a tick. Steps should all have the same length (see
+     * {@link FixedTimestep}) for runs to be reproducible.
+     * <p>
+     * A step that only waits for a pending capture leaves the level as it was and does not count
+     * as a {@linkplain #getTick() tick}; its input is ignored, but a drawing toggle stays set for
+     * the step that does advance. Once the capture is in, the step plays out just like one whose
+     * capture was solved synchronously, so the ticks and their inputs replay the same run with any
+     * solver.
+     */
+    public void step(float dt, LevelInput input) {
+        if (outcome != null) {
+            input.toggleDrawing = false;
+            return;
+        }
+
+        player.getPreviousPosition().set(player.getPosition());
+        for (int i = 0; i < enemies.size(); i++) {
+            enemies.get(i).getPreviousPosition().set(enemies.get(i).getPosition());
+        }
+
+        if (pendingCapture == null) {
+            checkCollisions();
+            if (outcome == null && player.wasCollisionDetected()) {
+                pendingPath = new ArrayList<>(player.getDrawingPath());
+                pendingEnemyPosition = (enemies.isEmpty() ? player.getPosition() : enemies.get(0).getPosition()).clone();
+                pendingCapture = captureSolver.solve(perimeter, pendingPath, pendingEnemyPosition);
+            }
+        }
+        if (pendingCapture != null) {
+            if (!pendingCapture.isDone()) {
+                return;
+            }
+            commitCapture();
+        }
+        boolean toggleDrawing = input.toggleDrawing;
+        input.toggleDrawing = false;
+        tick++;
+        if (outcome != null) {
+            return;
+        }
+
+        if (toggleDrawing && player.startDrawing()) {
+            listener.onDrawingStarted();
+        }
+        player.step(input, dt);
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemy.getMovement().step(enemy, perimeter, dt);
+        }
+    }
+
+    /**
+     * Number of steps that advanced the level so far.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    private void commitCapture() {
+        CaptureResult result;
+        try {
+            result = pendingCapture.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.log(Level.WARNING, "Capture failed, keeping the previous perimeter", e);
+            result = new CaptureResult(perimeter, null, 0.0, null);
+        }
+        List<Vector3f> path = pendingPath;
+        Vector3f enemyPosition = pendingEnemyPosition;
+        pendingCapture = null;
+        pendingPath = null;
+        pendingEnemyPosition = null;
+
+        Perimeter newPerimeter = result.getPerimeter();
+        boolean changed = newPerimeter != perimeter;
+        perimeter = newPerimeter;
+
+        double capturedArea;
+        if (gridTerritory != null) {
+            double lastPerimeterArea = currentPerimeterArea;
+            gridTerritory.capture(path, enemyPosition);
+            currentPerimeterArea = gridTerritory.getOpenArea();
+            capturedArea = lastPerimeterArea - currentPerimeterArea;
+        } else {
+            capturedArea = result.getCapturedArea();
+            currentPerimeterArea -= capturedArea;
+        }
+        score += 5 * capturedArea * (capturedArea / originalPerimeterArea);
+
+        player.finalizeCollision(newPerimeter);
+        listener.onCaptureCommitted(result, path, changed);
+        listener.onDrawingEnded();
+
+        if (currentPerimeterArea / originalPerimeterArea <= WIN_REMAINING_FRACTION) {
+            outcome = Outcome.WIN;
+        }
+    }
+
+    private void checkCollisions() {
+        // The player is only vulnerable when drawing a path
+        if (!player.isDrawing()) {
+            return;
+        }
+
+        Vector3f playerPos = player.getPosition();
+        List<Vector3f> path = player.getDrawingPath();
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            Vector3f enemyPos = enemy.getPosition();
+            float enemyRadius = enemy.getRadius();
+
+            // Check direct collision with enemy
+            if (playerPos.distance(enemyPos) <= player.getRadius() + enemyRadius) {
+                killPlayer();
+                return;
+            }
+
+            // Check if drawing path, or its live segment to the player, intersects enemy
+            if (!path.isEmpty()) {
+                Vector3f last = path.get(path.size() - 1);
+                if (isCircleIntersectingPolyline(enemyPos, enemyRadius, path)
+                        || distanceToSegment(enemyPos, last.x, last.y, playerPos.x, playerPos.y) <= enemyRadius) {
+                    killPlayer();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void killPlayer() {
+        player.kill();
+        outcome = Outcome.LOSE;
+    }
+
+    private static boolean isCircleIntersectingPolyline(Vector3f center, float radius, List<Vector3f> polyline) {
+        for (int i = 0; i < polyline.size() - 1; i++) {
+            Vector3f a = polyline.get(i);
+            Vector3f b = polyline.get(i + 1);
+            if (distanceToSegment(center, a.x, a.y, b.x, b.y) <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float distanceToSegment(Vector3f point, float ax, float ay, float bx, float by) {
+        float segX = bx - ax, segY = by - ay;
+        float segLenSq = segX * segX + segY * segY;
+        float t = 0f;
+        if (segLenSq != 0f) {
+            t = Math.max(0f, Math.min(1f, ((point.x - ax) * segX + (point.y - ay) * segY) / segLenSq));
+        }
+        float dx = ax + segX * t - point.x;
+        float dy = ay + segY * t - point.y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public PerimeterManager getPerimeterManager() {
+        return perimeterManager;
+    }
+
+    public Perimeter getPerimeter() {
+        return perimeter;
+    }
+
+    public GridTerritory getGridTerritory() {
+        return gridTerritory;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public List<Enemy> getEnemies() {
+        return enemiesView;
+    }
+
+    public boolean isCapturePending() {
+        return pendingCapture != null;
+    }
+
+    /**
+     * Whether the player's drawing path may still grow: they are drawing, have not reached the
+     * boundary yet, and no capture is pending. Once the path has closed, the next step solves the
+     * capture for it as it is.
+     */
+    public boolean isPathOpen() {
+        return player.isDrawing() && !player.wasCollisionDetected() && pendingCapture == null;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * How much of the original territory has been captured, in percent.
+     */
+    public double getCapturedPercentage() {
+        return (1 - (currentPerimeterArea / originalPerimeterArea)) * 100;
+    }
+
+    /**
+     * How the level ended, or null while it is still running.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+}
@@ -0,0 +1,208 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.perimeter.Perimeter;
+import com.turboio.games.vampires.perimeter.PerimeterManager;
+import com.turboio.games.vampires.perimeter.PerimeterRail;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The player of a {@link LevelSimulation}. While not drawing, the player slides along the
+ * perimeter; while drawing, they move freely inside it and leave a path of turn points behind, until
+ * the path meets the boundary again and waits there for the capture to be committed.
+ */
+public class Player {
+
+    private static final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE));
+    private static final float DEFAULT_RADIUS = 32f;
+
+    private final float speed = 280f;
+    private final Vector3f position = new Vector3f();
+    private final Vector3f previousPosition = new Vector3f();
+    private final Vector3f direction = new Vector3f();
+    private final Vector3f lastDirection = new Vector3f();
+    private float radius = DEFAULT_RADIUS;
+    private boolean alive = true;
+
+    private Perimeter perimeter;
+    private final PerimeterManager perimeterManager;
+    private final List<Vector3f> playerPath = new ArrayList<>();
+    private boolean drawing = false;
+    private boolean collisionDetected = false;
+    private Vector3f intersectionPoint;
+
+    // Where the player is on the perimeter rail while not drawing; re-projected when stale.
+    private final PerimeterRail.Position railPosition = new PerimeterRail.Position();
+    private boolean railPositionValid = false;
+
+    Player(Perimeter perimeter, PerimeterManager perimeterManager, float x, float y) {
+        this.perimeter = perimeter;
+        this.perimeterManager = perimeterManager;
+        this.position.set(x, y, 0);
+        this.previousPosition.set(x, y, 0);
+    }
+
+    void setPerimeter(Perimeter perimeter) {
+        this.perimeter = perimeter;
+        this.railPositionValid = false;
+    }
+
+    void step(LevelInput input, float dt) {
+        if (collisionDetected) {
+            return; // Wait for the capture to be committed
+        }
+
+        direction.set(0, 0, 0);
+        if (input.up) direction.y = 1;
+        if (input.down) direction.y = -1;
+        if (input.left) direction.x = -1;
+        if (input.right) direction.x = 1;
+        direction.normalizeLocal();
+
+        if (direction.lengthSquared() == 0) {
+            return; // No input
+        }
+
+        if (drawing && lastDirection.lengthSquared() > 0 && !direction.equals(lastDirection)) {
+            playerPath.add(new Vector3f(position.x, position.y, 0));
+        }
+        lastDirection.set(direction);
+
+        if (drawing) {
+            // When drawing, move freely and check for collision
+            Vector3f nextPos = position.add(direction.mult(speed * dt));
+            if (!perimeter.contains(nextPos)) {
+                checkForPerimeterCollision(position, nextPos);
+            } else {
+                position.set(nextPos);
+            }
+        } else {
+            // When not drawing, slide along the perimeter rail. Only the input component along the
+            // current edge moves the player, and corners are crossed when the input agrees with the
+            // next edge, so the player can never jump across a narrow gap.
+            PerimeterRail rail = perimeter.getRail();
+            if (!railPositionValid) {
+                rail.project(position.x, position.y, railPosition);
+                railPositionValid = true;
+            }
+            rail.advance(railPosition, direction.x, direction.y, speed * dt);
+            rail.getPoint(railPosition, position);
+        }
+    }
+
+    /**
+     * Starts drawing from the current position unless already drawing. Returns whether it did.
+     */
+    boolean startDrawing() {
+        if (drawing) {
+            return false;
+        }
+        drawing = true;
+        railPositionValid = false;
+        playerPath.clear();
+        playerPath.add(new Vector3f(position.x, position.y, 0));
+        return true;
+    }
+
+    private void checkForPerimeterCollision(Vector3f currentPos, Vector3f nextPos) {
+        LineString movementLine = geometryFactory.createLineString(new Coordinate[]{
+            new Coordinate(currentPos.x, currentPos.y),
+            new Coordinate(nextPos.x, nextPos.y)
+        });
+
+        Vector3f intersection = perimeterManager.getIntersection(movementLine, perimeter);
+
+        if (intersection != null) {
+            if (playerPath.size() >= 1) {
+                this.intersectionPoint = intersection;
+                this.collisionDetected = true;
+                position.set(intersection.x, intersection.y, 0);
+                playerPath.add(new Vector3f(intersection.x, intersection.y, 0));
+            } else {
+                if (!playerPath.isEmpty()) {
+                    Vector3f startPos = playerPath.get(0);
+                    position.set(startPos.x, startPos.y, 0);
+                    playerPath.clear();
+                    drawing = false;
+                    railPositionValid = false;
+                }
+            }
+        }
+    }
+
+    boolean wasCollisionDetected() {
+        return collisionDetected;
+    }
+
+    void finalizeCollision(Perimeter newPerimeter) {
+        setPerimeter(newPerimeter);
+        this.collisionDetected = false;
+        this.drawing = false;
+        this.playerPath.clear();
+        // The new perimeter may have been simplified, so put the player back exactly on its boundary.
+        PerimeterRail rail = newPerimeter.getRail();
+        rail.project(intersectionPoint.x, intersectionPoint.y, railPosition);
+        railPositionValid = true;
+        rail.getPoint(railPosition, position);
+    }
+
+    void kill() {
+        alive = false;
+        collisionDetected = false;
+        drawing = false;
+        playerPath.clear();
+        railPositionValid = false;
+    }
+
+    public Vector3f getPosition() {
+        return position;
+    }
+
+    /**
+     * The position before the last step, for interpolating between steps.
+     */
+    public Vector3f getPreviousPosition() {
+        return previousPosition;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public void setRadius(float radius) {
+        this.radius = radius;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * The direction the input asked for in the last step, or zero when there was none.
+     */
+    public Vector3f getDirection() {
+        return direction;
+    }
+
+    /**
+     * The direction of the last movement input. While drawing, the path keeps extending along it
+     * until the next turn.
+     */
+    public Vector3f getHeading() {
+        return lastDirection;
+    }
+
+    public List<Vector3f> getDrawingPath() {
+        return playerPath;
+    }
+
+    public boolean isDrawing() {
+        return drawing;
+    }
+}
@@ -0,0 +1,42 @@
+package com.turboio.games.vampires.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * The random numbers of one level run, derived from a single seed. Every consumer asks for its own
+ * named stream, for instance one per enemy and one per effect, and the stream only depends on the
+ * seed and the name. So streams do not share state, a consumer drawing more or fewer numbers never
+ * shifts another's sequence, and the same seed replays the same run.
+ */
+public final class RandomStreams {
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a new generator for the named stream. Asking twice for the same name gives two
+     * generators with the same sequence.
+     */
+    public SplittableRandom stream(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        // Mix rather than add: seeds a multiple of the generator's increment apart would otherwise
+        // give overlapping sequences.
+        return new SplittableRandom(mix64(seed ^ mix64(hash)));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,71 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.perimeter.Perimeter;
+
+import java.util.SplittableRandom;
+
+/**
+ * Walks in a straight line and picks a new random direction every few seconds, or as soon as the
+ * next step would bring it within its radius of the boundary.
+ */
+public class WanderingMovement implements EnemyMovement {
+
+    private static final float DEFAULT_MIN_INTERVAL = 1.5f;
+    private static final float DEFAULT_MAX_INTERVAL = 3.5f;
+
+    private final SplittableRandom random;
+
+    private float minInterval;
+    private float maxInterval;
+    private float directionTimer = 0f;
+    private final Vector3f velocity = new Vector3f();
+
+    public WanderingMovement(SplittableRandom random) {
+        this(random, DEFAULT_MIN_INTERVAL, DEFAULT_MAX_INTERVAL);
+    }
+
+    public WanderingMovement(SplittableRandom random, float minInterval, float maxInterval) {
+        this.random = random;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        chooseNewDirection();
+    }
+
+    public void setDirectionInterval(float minInterval, float maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+    }
+
+    @Override
+    public void step(Enemy enemy, Perimeter perimeter, float dt) {
+        directionTimer -= dt;
+        if (directionTimer <= 0f) {
+            chooseNewDirection();
+        }
+
+        Vector3f position = enemy.getPosition();
+        float nextX = position.x + velocity.x * enemy.getSpeed() * dt;
+        float nextY = position.y + velocity.y * enemy.getSpeed() * dt;
+        if (!isInsideWithRadius(nextX, nextY, enemy.getRadius(), perimeter)) {
+            chooseNewDirection();
+            return;
+        }
+        position.set(nextX, nextY, 0);
+    }
+
+    private void chooseNewDirection() {
+        do {
+            velocity.set(random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f, 0f);
+        } while (velocity.lengthSquared() == 0f);
+        velocity.normalizeLocal();
+        directionTimer = minInterval + random.nextFloat() * (maxInterval - minInterval);
+    }
+
+    private boolean isInsideWithRadius(float x, float y, float radius, Perimeter p) {
+        if (!p.contains(x, y)) {
+            return false;
+        }
+        return !p.getEdgeIndex().anyEdgeWithin(x, y, radius);
+    }
+}
@@ -0,0 +1,282 @@
+package com.turboio.games.vampires.sprites;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * One texture holding every frame of a sprite set, with the frames of each animation stored as UV
+ * rectangles into it. A sprite set is described by {@code <basePath>.sprite.json} (see
+ * {@link SpriteSetConfig}); its sheets are packed side by side into the atlas.
+ * <p>
+ * The build bakes every sprite set into {@code <basePath>.atlas} (see {@link SpriteAtlasBaker}):
+ * the packed pixels, already decoded and in texture row order, plus the frame rectangles. Loading
+ * a baked atlas is one bulk read and one buffer copy. Without a baked atlas, for instance when
+ * running from sources, the sheets are decoded and packed at load time instead.
+ * <p>
+ * Atlases are cached by base path, so every sprite using a set shares one texture and one
+ * material and only has to change its texture coordinates to animate. That also lets sprites of
+ * the same set be batched together.
+ */
+public final class SpriteAtlas {
+
+    private static final Logger logger = Logger.getLogger(SpriteAtlas.class.getName());
+    static final String DESCRIPTOR_SUFFIX = ".sprite.json";
+    static final String BAKED_SUFFIX = ".atlas";
+    // "ATL1"
+    private static final int MAGIC = 0x41544c31;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Map<String, SpriteAtlas> CACHE = new LinkedHashMap<>();
+
+    private final Image image;
+    // u0, v0, u1, v1 for every frame of an animation, plus the same frames mirrored horizontally.
+    private final Map<String, float[]> frames = new LinkedHashMap<>();
+    private final Map<String, float[]> mirroredFrames = new LinkedHashMap<>();
+    private Texture2D texture;
+    private Material material;
+
+    private SpriteAtlas(Image image) {
+        this.image = image;
+    }
+
+    /**
+     * Returns the shared atlas for the sprite set at the given base path, loading it on first
+     * use. Must be called on the render thread.
+     */
+    public static synchronized SpriteAtlas get(AssetManager assetManager, String basePath) {
+        SpriteAtlas atlas = CACHE.get(basePath);
+        if (atlas != null) {
+            return atlas;
+        }
+        long start = System.nanoTime();
+        AssetInfo baked = assetManager.locateAsset(new AssetKey<>(basePath + BAKED_SUFFIX));
+        boolean packed = baked == null;
+        try {
+            if (packed) {
+                atlas = pack(assetManager, basePath, loadConfig(assetManager, basePath));
+            } else {
+                try (InputStream stream = baked.openStream()) {
+                    atlas = read(ByteBuffer.wrap(stream.readAllBytes()));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load sprite atlas " + basePath, e);
+        }
+
+        atlas.texture = new Texture2D(atlas.image);
+        atlas.texture.setMagFilter(Texture.MagFilter.Nearest);
+        atlas.texture.setMinFilter(Texture.MinFilter.NearestNoMipMaps);
+        atlas.material = new Material(assetManager, "Common/MatDefs/Gui/Gui.j3md");
+        atlas.material.setColor("Color", ColorRGBA.White);
+        atlas.material.setTexture("Texture", atlas.texture);
+        atlas.material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+        CACHE.put(basePath, atlas);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        Image image = atlas.image;
+        logger.fine(() -> (packed ? "Packed" : "Loaded baked") + " sprite atlas " + basePath + " ("
+                + image.getWidth() + "x" + image.getHeight() + ") in " + millis + " ms");
+        return atlas;
+    }
+
+    static SpriteSetConfig loadConfig(AssetManager assetManager, String basePath) throws IOException {
+        AssetInfo info = assetManager.locateAsset(new AssetKey<>(basePath + DESCRIPTOR_SUFFIX));
+        if (info == null) {
+            throw new IOException("Sprite set descriptor not found: " + basePath + DESCRIPTOR_SUFFIX);
+        }
+        try (InputStream stream = info.openStream()) {
+            return MAPPER.readValue(stream, SpriteSetConfig.class);
+        }
+    }
+
+    /**
+     * Decodes the sheets of a sprite set and packs them side by side, one bulk copy per row.
+     */
+    static SpriteAtlas pack(AssetManager assetManager, String basePath, SpriteSetConfig config) {
+        List<SpriteSheetConfig> sheets = config.getSheets();
+        Image[] images = new Image[sheets.size()];
+        int width = 0;
+        int height = 0;
+        for (int i = 0; i < images.length; i++) {
+            images[i] = assetManager.loadTexture(basePath + "-" + sheets.get(i).getAnimation() + ".png").getImage();
+            if (images[i].getFormat().getBitsPerPixel() != 32 || images[i].getFormat() != images[0].getFormat()) {
+                throw new IllegalStateException("Sprite sheets of " + basePath + " must share one 32-bit format, got "
+                        + images[i].getFormat() + " and " + images[0].getFormat());
+            }
+            width += images[i].getWidth();
+            height = Math.max(height, images[i].getHeight());
+        }
+
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
+        int x = 0;
+        for (Image image : images) {
+            ByteBuffer source = image.getData(0).duplicate();
+            int rowBytes = image.getWidth() * 4;
+            for (int row = 0; row < image.getHeight(); row++) {
+                source.limit((row + 1) * rowBytes).position(row * rowBytes);
+                data.position((row * width + x) * 4);
+                data.put(source);
+            }
+            x += image.getWidth();
+        }
+        data.clear();
+
+        SpriteAtlas atlas = new SpriteAtlas(new Image(images[0].getFormat(), width, height, data, images[0].getColorSpace()));
+        x = 0;
+        for (int i = 0; i < images.length; i++) {
+            SpriteSheetConfig sheet = sheets.get(i);
+            int columns = sheet.getColumns();
+            int rows = sheet.getRows();
+            float frameWidth = (float) images[i].getWidth() / columns / width;
+            float frameHeight = (float) images[i].getHeight() / rows / height;
+            float left = (float) x / width;
+            float[] uvs = new float[columns * rows * 4];
+            // Frames run along the rows of the image data, starting from its first row.
+            for (int frame = 0; frame < columns * rows; frame++) {
+                float u0 = left + (frame % columns) * frameWidth;
+                float v0 = (frame / columns) * frameHeight;
+                uvs[frame * 4] = u0;
+                uvs[frame * 4 + 1] = v0;
+                uvs[frame * 4 + 2] = u0 + frameWidth;
+                uvs[frame * 4 + 3] = v0 + frameHeight;
+            }
+            atlas.addAnimation(sheet.getAnimation(), uvs);
+            x += images[i].getWidth();
+        }
+        return atlas;
+    }
+
+    /**
+     * Writes the atlas in the baked format: a header with the image format and size, the frame
+     * rectangles of every animation, then the raw pixels.
+     */
+    void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        writeString(out, image.getFormat().name());
+        writeString(out, image.getColorSpace() == null ? ColorSpace.sRGB.name() : image.getColorSpace().name());
+        out.writeInt(image.getWidth());
+        out.writeInt(image.getHeight());
+        out.writeInt(frames.size());
+        for (Map.Entry<String, float[]> animation : frames.entrySet()) {
+            writeString(out, animation.getKey());
+            out.writeInt(animation.getValue().length / 4);
+            for (float value : animation.getValue()) {
+                out.writeFloat(value);
+            }
+        }
+        ByteBuffer pixels = image.getData(0).duplicate();
+        pixels.clear();
+        byte[] bytes = new byte[pixels.remaining()];
+        pixels.get(bytes);
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * Reads an atlas written by {@link #write(OutputStream)}.
+     */
+    static SpriteAtlas read(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a baked sprite atlas");
+        }
+        Image.Format format = Image.Format.valueOf(readString(in));
+        ColorSpace colorSpace = ColorSpace.valueOf(readString(in));
+        int width = in.getInt();
+        int height = in.getInt();
+        int animations = in.getInt();
+        float[][] uvs = new float[animations][];
+        String[] names = new String[animations];
+        for (int i = 0; i < animations; i++) {
+            names[i] = readString(in);
+            uvs[i] = new float[in.getInt() * 4];
+            in.asFloatBuffer().get(uvs[i]);
+            in.position(in.position() + uvs[i].length * 4);
+        }
+        int size = width * height * format.getBitsPerPixel() / 8;
+        if (in.remaining() != size) {
+            throw new IOException("Baked sprite atlas has " + in.remaining() + " bytes of pixels, expected " + size);
+        }
+        ByteBuffer data = BufferUtils.createByteBuffer(size);
+        data.put(in).clear();
+
+        SpriteAtlas atlas = new SpriteAtlas(new Image(format, width, height, data, colorSpace));
+        for (int i = 0; i < animations; i++) {
+            atlas.addAnimation(names[i], uvs[i]);
+        }
+        return atlas;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void addAnimation(String animation, float[] uvs) {
+        float[] mirrored = uvs.clone();
+        for (int k = 0; k < mirrored.length; k += 4) {
+            mirrored[k] = uvs[k + 2];
+            mirrored[k + 2] = uvs[k];
+        }
+        frames.put(animation, uvs);
+        mirroredFrames.put(animation, mirrored);
+    }
+
+    Image getImage() {
+        return image;
+    }
+
+    public Texture2D getTexture() {
+        return texture;
+    }
+
+    /**
+     * The material every sprite of this set shares.
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    public int getFrameCount(String animation) {
+        return getFrames(animation, false).length / 4;
+    }
+
+    /**
+     * The UV rectangles of an animation's frames as {@code u0, v0, u1, v1} quadruples. Mirrored
+     * frames have {@code u0 > u1}. The array is shared and must not be modified.
+     */
+    public float[] getFrames(String animation, boolean mirrored) {
+        float[] uvs = (mirrored ? mirroredFrames : frames).get(animation);
+        if (uvs == null) {
+            throw new IllegalArgumentException("No animation " + animation + " in sprite atlas");
+        }
+        return uvs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.turboio.games.vampires.sprites;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.plugins.FileLocator;
+import com.jme3.system.JmeSystem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Build step that bakes every sprite set found under a resource directory into a
+ * {@link SpriteAtlas} blob next to its descriptor. Run by Maven in the {@code process-classes}
+ * phase with the class output directory as its argument, so the baked atlases end up on the
+ * runtime classpath.
+ */
+public class SpriteAtlasBaker {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SpriteAtlasBaker <resource directory>");
+            System.exit(1);
+        }
+        Path root = Paths.get(args[0]);
+        AssetManager assetManager = JmeSystem.newAssetManager(
+                SpriteAtlasBaker.class.getClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        assetManager.registerLocator(root.toString(), FileLocator.class);
+
+        List<Path> descriptors;
+        try (Stream<Path> files = Files.walk(root)) {
+            descriptors = files
+                    .filter(file -> file.getFileName().toString().endsWith(SpriteAtlas.DESCRIPTOR_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path descriptor : descriptors) {
+            String name = root.relativize(descriptor).toString().replace('\\', '/');
+            String basePath = name.substring(0, name.length() - SpriteAtlas.DESCRIPTOR_SUFFIX.length());
+            SpriteAtlas atlas = SpriteAtlas.pack(assetManager, basePath,
+                    SpriteAtlas.loadConfig(assetManager, basePath));
+            Path output = root.resolve(basePath + SpriteAtlas.BAKED_SUFFIX);
+            try (OutputStream stream = Files.newOutputStream(output)) {
+                atlas.write(stream);
+            }
+            System.out.println("Baked sprite atlas " + basePath + " ("
+                    + atlas.getImage().getWidth() + "x" + atlas.getImage().getHeight() + ")");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.turboio.games.vampires.sprites;
+
+import com.jme3.material.Material;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.util.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws many copies of one sprite as a single mesh with one material: a quad per instance,
+ * centred on the instance's position. Instances are positions owned by the simulation, such as
+ * enemy positions; the batch only reads them. The geometry's translation places the batch as a
+ * whole, for instance on its layer.
+ * <p>
+ * Texture coordinates and indices depend only on the instance count, so they are written once
+ * per allocation, and the buffers double when instances outgrow them. Each frame only the quad
+ * positions are rewritten, from a control on the batch geometry.
+ */
+public final class SpriteBatch {
+
+    private final Geometry geometry;
+    private final Mesh mesh;
+    private final float width;
+    private final float height;
+    private final float halfWidth;
+    private final float halfHeight;
+    private final List<Vector3f> instances = new ArrayList<>();
+    private FloatBuffer positions;
+    private FloatBuffer texCoords;
+    private IntBuffer indices;
+
+    public SpriteBatch(String name, Material material, float width, float height) {
+        this.width = width;
+        this.height = height;
+        this.halfWidth = width / 2f;
+        this.halfHeight = height / 2f;
+        mesh = new Mesh();
+        mesh.setDynamic();
+        geometry = new Geometry(name, mesh);
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(RenderQueue.Bucket.Gui);
+        geometry.setCullHint(Spatial.CullHint.Never);
+        geometry.addControl(new AbstractControl() {
+            @Override
+            protected void controlUpdate(float tpf) {
+                SpriteBatch.this.update();
+            }
+
+            @Override
+            protected void controlRender(RenderManager rm, ViewPort vp) {
+            }
+        });
+        allocate(16);
+        setCount(0);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Adds an instance; the batch follows the given position from now on.
+     */
+    public void add(Vector3f position) {
+        instances.add(position);
+        int count = instances.size();
+        if (count * 4 * 3 > positions.capacity()) {
+            allocate(count * 2);
+        }
+        setCount(count);
+        update();
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    public int getInstanceCount() {
+        return instances.size();
+    }
+
+    /**
+     * Rewrites the quad positions from the instances' current positions.
+     */
+    public void update() {
+        positions.clear();
+        for (int i = 0; i < instances.size(); i++) {
+            Vector3f instance = instances.get(i);
+            float x0 = instance.x - halfWidth, x1 = instance.x + halfWidth;
+            float y0 = instance.y - halfHeight, y1 = instance.y + halfHeight;
+            float z = instance.z;
+            positions.put(x0).put(y0).put(z);
+            positions.put(x1).put(y0).put(z);
+            positions.put(x1).put(y1).put(z);
+            positions.put(x0).put(y1).put(z);
+        }
+        positions.flip();
+        mesh.getBuffer(VertexBuffer.Type.Position).updateData(positions);
+        mesh.updateBound();
+        geometry.updateModelBound();
+    }
+
+    private void allocate(int capacity) {
+        positions = BufferUtils.createFloatBuffer(capacity * 4 * 3);
+        texCoords = BufferUtils.createFloatBuffer(capacity * 4 * 2);
+        indices = BufferUtils.createIntBuffer(capacity * 6);
+        for (int i = 0; i < capacity; i++) {
+            texCoords.put(0f).put(0f).put(1f).put(0f).put(1f).put(1f).put(0f).put(1f);
+            int v = i * 4;
+            indices.put(v).put(v + 1).put(v + 2);
+            indices.put(v).put(v + 2).put(v + 3);
+        }
+    }
+
+    private void setCount(int count) {
+        positions.limit(count * 4 * 3);
+        texCoords.limit(count * 4 * 2).rewind();
+        indices.limit(count * 6).rewind();
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions);
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, texCoords);
+        mesh.setBuffer(VertexBuffer.Type.Index, 3, indices);
+        mesh.updateCounts();
+    }
+}
@@ -0,0 +1,47 @@
+package com.turboio.games.vampires.sprites;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState;
+import com.jme3.math.ColorRGBA;
+import com.jme3.texture.Texture2D;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared materials for single-image sprites, keyed by sprite name. The sprite {@code name} is the
+ * texture {@code Textures/<name>.png}; it is loaded once and every sprite of that name renders
+ * with the same material, so sprites of one kind can share a batch and its render state.
+ */
+public final class SpriteMaterialCache {
+
+    private static final Map<String, Material> CACHE = new HashMap<>();
+
+    private SpriteMaterialCache() {
+    }
+
+    /**
+     * Returns the shared material for the given sprite, creating it on first use. Must be called
+     * on the render thread.
+     */
+    public static synchronized Material get(AssetManager assetManager, String name) {
+        Material material = CACHE.get(name);
+        if (material == null) {
+            Texture2D texture = (Texture2D) assetManager.loadTexture("Textures/" + name + ".png");
+            material = new Material(assetManager, "Common/MatDefs/Gui/Gui.j3md");
+            material.setColor("Color", ColorRGBA.White);
+            material.setTexture("Texture", texture);
+            material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.AlphaAdditive);
+            CACHE.put(name, material);
+        }
+        return material;
+    }
+
+    /**
+     * The sprite texture of a material returned by {@link #get}.
+     */
+    public static Texture2D getTexture(Material material) {
+        return (Texture2D) material.getTextureParam("Texture").getTextureValue();
+    }
+}
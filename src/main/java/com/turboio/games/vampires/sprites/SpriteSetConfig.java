@@ -0,0 +1,18 @@
+package com.turboio.games.vampires.sprites;
+
+import java.util.List;
+
+/**
+ * Descriptor of a sprite set, read from {@code <basePath>.sprite.json}.
+ */
+public class SpriteSetConfig {
+    private List<SpriteSheetConfig> sheets;
+
+    public List<SpriteSheetConfig> getSheets() {
+        return sheets;
+    }
+
+    public void setSheets(List<SpriteSheetConfig> sheets) {
+        this.sheets = sheets;
+    }
+}
@@ -0,0 +1,35 @@
+package com.turboio.games.vampires.sprites;
+
+/**
+ * One sheet of a sprite set: the image {@code <basePath>-<animation>.png}, a grid of equally sized
+ * frames numbered along the rows.
+ */
+public class SpriteSheetConfig {
+    private String animation;
+    private int columns;
+    private int rows;
+
+    public String getAnimation() {
+        return animation;
+    }
+
+    public void setAnimation(String animation) {
+        this.animation = animation;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public void setColumns(int columns) {
+        this.columns = columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+}
@@ -10,87 +10,184 @@ import com.jme3.input.KeyInput;
 import com.jme3.input.controls.ActionListener;
 import com.jme3.input.controls.KeyTrigger;
 import com.jme3.material.Material;
-import com.jme3.material.RenderState;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Quad;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture2D;
 import com.jme3.ui.Picture;
 import com.turboio.games.vampires.audio.Sound;
 import com.turboio.games.vampires.controls.AnimatedSpriteControl;
-import com.turboio.games.vampires.controls.EnemyMovementControl;
-import com.turboio.games.vampires.controls.PlayerControl;
-import com.turboio.games.vampires.controls.WanderingEnemyControl;
 import com.turboio.games.vampires.level.EnemyConfig;
 import com.turboio.games.vampires.level.LevelConfig;
+import com.turboio.games.vampires.perimeter.CaptureResult;
+import com.turboio.games.vampires.perimeter.CaptureSpeculator;
+import com.turboio.games.vampires.perimeter.DayField;
+import com.turboio.games.vampires.perimeter.DrawingTrail;
 import com.turboio.games.vampires.perimeter.Perimeter;
 import com.turboio.games.vampires.perimeter.PerimeterManager;
+import com.turboio.games.vampires.perimeter.PerimeterOutlineBatch;
 import com.turboio.games.vampires.perimeter.PerimeterRenderer;
+import com.turboio.games.vampires.perimeter.Poly2TriTriangulator;
 import com.turboio.games.vampires.perimeter.SparkEffect;
-
-import java.lang.reflect.InvocationTargetException;
+import com.turboio.games.vampires.replay.InputTrace;
+import com.turboio.games.vampires.replay.ReplayPlayer;
+import com.turboio.games.vampires.sim.Enemy;
+import com.turboio.games.vampires.sim.FixedTimestep;
+import com.turboio.games.vampires.sim.LevelInput;
+import com.turboio.games.vampires.sim.LevelSimulation;
+import com.turboio.games.vampires.sim.Player;
+import com.turboio.games.vampires.sprites.SpriteBatch;
+import com.turboio.games.vampires.sprites.SpriteMaterialCache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-public class LevelAppState extends BaseAppState implements ActionListener {
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Plays a level: steps its {@link LevelSimulation} and mirrors it into the scene, turning input
+ * into {@link LevelInput} and simulation events into sounds and mesh updates. The simulation runs
+ * at a fixed {@link #SIMULATION_RATE} whatever the frame rate; sprites are drawn interpolated
+ * between its last two steps.
+ * <p>
+ * A level started from its resource path records the run as an {@link InputTrace} and saves it
+ * to {@value #REPLAY_DIRECTORY} (or the directory in the {@code vampires.replayDir} property)
+ * when the level is left. Given a {@link ReplayPlayer} instead, it shows the recorded run and
+ * ignores the keyboard.
+ */
+public class LevelAppState extends BaseAppState implements ActionListener, LevelSimulation.Listener {
     public enum LevelOutcome { WIN, LOSE }
 
     public interface LevelResultListener {
         void onLevelCompleted(LevelOutcome outcome, double score, double percentage);
     }
 
+    private static final Logger logger = Logger.getLogger(LevelAppState.class.getName());
+
+    static final float SIMULATION_RATE = 120f;
+    private static final int MAX_STEPS_PER_FRAME = 8;
+    private static final float PLAYER_Z = 4f;
+    private static final float ENEMY_Z = 4f;
+    private static final String REPLAY_DIRECTORY = "replays";
+    private static final DateTimeFormatter REPLAY_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final String levelPath;
     private final LevelConfig config;
     private final LevelResultListener resultListener;
+    private final ReplayPlayer replay;
+    private InputTrace recording;
 
     private SimpleApplication app;
+    private LevelSimulation simulation;
+    private final LevelInput input = new LevelInput();
+    private FixedTimestep timestep;
+    private final Vector3f playerRenderPosition = new Vector3f();
+    private final List<Vector3f> enemyRenderPositions = new ArrayList<>();
     private Picture background;
-    private final List<Spatial> enemies = new ArrayList<>();
-    private final List<EnemyMovementControl> enemyControls = new ArrayList<>();
-    private Node perimeterGeoms;
-    private Geometry dayField;
-    private Geometry drawingPathGeom;
+    // Each sprite's enemies are drawn by one batch, at their interpolated simulated positions.
+    private final Map<String, SpriteBatch> enemyBatches = new LinkedHashMap<>();
+    private PerimeterOutlineBatch perimeterOutlines;
+    private DayField dayField;
+    private DrawingTrail drawingTrail;
     private SparkEffect sparkEffect;
 
-    private List<Perimeter> perimeters;
-    private PerimeterManager perimeterManager;
     private PerimeterRenderer perimeterRenderer;
-    private double originalPerimeterArea;
-    private double currentPerimeterArea;
-    private double score;
     private BitmapText scoreText;
     private BitmapText percentageText;
     private Sound sound;
     private float pulseTimer = 0;
+    private static final ColorRGBA TRAIL_GLOW = new ColorRGBA(1f, 0.15f, 0.15f, 1f);
+    private final ColorRGBA trailGlow = new ColorRGBA();
 
     private final String[] MAPPINGS = new String[]{"left", "right", "up", "down", "return", "draw"};
 
     private Spatial player;
     private boolean gameOver = false;
 
+    // Captures are computed off the render thread; the simulation waits for them.
+    private ExecutorService captureExecutor;
+    private CaptureSpeculator captureSpeculator;
+
     public LevelAppState(LevelConfig config) {
         this(config, null);
     }
 
     public LevelAppState(LevelConfig config, LevelResultListener listener) {
+        this(null, config, listener, null);
+    }
+
+    /**
+     * Plays the level loaded from {@code levelPath} and records the run.
+     */
+    public LevelAppState(String levelPath, LevelConfig config, LevelResultListener listener) {
+        this(levelPath, config, listener, null);
+    }
+
+    /**
+     * Shows a recorded run of the given level at realtime.
+     */
+    public LevelAppState(ReplayPlayer replay, LevelConfig config, LevelResultListener listener) {
+        this(null, config, listener, replay);
+    }
+
+    private LevelAppState(String levelPath, LevelConfig config, LevelResultListener listener, ReplayPlayer replay) {
+        this.levelPath = levelPath;
         this.config = config;
         this.resultListener = listener;
+        this.replay = replay;
     }
 
     @Override
     protected void initialize(Application app) {
         this.app = (SimpleApplication) app;
-        this.perimeterManager = new PerimeterManager();
+        if (replay != null) {
+            this.simulation = replay.createSimulation(config);
+            this.timestep = new FixedTimestep(replay.getTrace().getStepsPerSecond(), MAX_STEPS_PER_FRAME);
+        } else {
+            this.simulation = new LevelSimulation(config, app.getCamera().getWidth(), app.getCamera().getHeight());
+            this.timestep = new FixedTimestep(SIMULATION_RATE, MAX_STEPS_PER_FRAME);
+        }
         this.perimeterRenderer = new PerimeterRenderer(app.getAssetManager(), app.getCamera().getWidth(), app.getCamera().getHeight());
-
+        if ("poly2tri".equalsIgnoreCase(config.getTriangulator())) {
+            perimeterRenderer.setTriangulator(new Poly2TriTriangulator());
+        }
+        perimeterRenderer.setUseRevealMask("mask".equalsIgnoreCase(config.getDayField()));
+        this.captureExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "capture-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.captureSpeculator = new CaptureSpeculator(captureExecutor, simulation.getPerimeterManager(), perimeterRenderer);
+        simulation.setCaptureSolver(this::solveCapture);
+        simulation.setListener(this);
+        input.clear();
         setupBackground();
         setupPerimeter();
         setupPlayer();
         setupEnemies();
         setupUI();
+        if (replay != null) {
+            replay.restoreRadii(simulation);
+        } else if (levelPath != null) {
+            recording = InputTrace.of(levelPath, simulation, app.getCamera().getWidth(), app.getCamera().getHeight(), SIMULATION_RATE);
+        }
         sound = new Sound(app.getAssetManager());
         if (config.getMusic() != null) {
             sound.playMusic(config.getMusic());
@@ -108,32 +205,12 @@ public class LevelAppState extends BaseAppState implements ActionListener {
     }
 
     private void setupPerimeter() {
-        List<Vector3f> vertices = new ArrayList<>();
-        if (config.getPerimeterVertices() != null && !config.getPerimeterVertices().isEmpty()) {
-            config.getPerimeterVertices().forEach(v -> vertices.add(new Vector3f(v.getX(), v.getY(), 0)));
-        } else {
-            float inset = 64f;
-            float screenWidth = app.getCamera().getWidth();
-            float screenHeight = app.getCamera().getHeight();
-            vertices.add(new Vector3f(inset, inset, 0));
-            vertices.add(new Vector3f(screenWidth - inset, inset, 0));
-            vertices.add(new Vector3f(screenWidth - inset, screenHeight - inset - 50, 0));
-            vertices.add(new Vector3f(inset, screenHeight - inset - 50, 0));
-        }
-        Perimeter initialPerimeter = new Perimeter(vertices);
-        this.perimeters = new ArrayList<>();
-        this.perimeters.add(initialPerimeter);
-        this.originalPerimeterArea = initialPerimeter.getArea();
-        this.currentPerimeterArea = originalPerimeterArea;
-        this.score = 0;
-
-        perimeterGeoms = new Node("PerimeterGeometries");
+        Perimeter initialPerimeter = simulation.getPerimeter();
         perimeterRenderer.setForegroundTexture(config.getForegroundImage() != null ? config.getForegroundImage() : "Textures/field.png");
-        Geometry initialPerimeterLine = perimeterRenderer.createPerimeterLine(initialPerimeter.getVertices());
-        perimeterGeoms.attachChild(initialPerimeterLine);
-        dayField = perimeterRenderer.createDayField(initialPerimeter.getVertices());
-        drawingPathGeom = perimeterRenderer.createDrawingPathLine();
-        sparkEffect = new SparkEffect(app.getGuiNode(), app.getAssetManager());
+        perimeterOutlines = perimeterRenderer.createPerimeterOutlines(initialPerimeter);
+        dayField = perimeterRenderer.createDayField(initialPerimeter, simulation.getGridTerritory());
+        drawingTrail = perimeterRenderer.createDrawingTrail();
+        sparkEffect = new SparkEffect(app.getGuiNode(), app.getAssetManager(), simulation.getRandomStreams().stream("sparks"));
     }
 
     private void setupPlayer() {
@@ -146,46 +223,30 @@ public class LevelAppState extends BaseAppState implements ActionListener {
             player = createSprite(playerName);
         }
         
-        player.setUserData("alive", true);
-        player.setLocalTranslation(perimeters.get(0).getVertices().get(0).add(0, 0, 4f));
+        simulation.getPlayer().setRadius(((Number) player.getUserData("radius")).floatValue());
         player.setQueueBucket(RenderQueue.Bucket.Gui);
-        player.addControl(new PlayerControl(perimeters.get(0), perimeterManager));
+        syncPlayer(1f);
     }
 
     private void setupEnemies() {
-        enemies.clear();
-        enemyControls.clear();
+        enemyBatches.clear();
+        enemyRenderPositions.clear();
         if (config.getEnemies() != null) {
-            for (EnemyConfig enemyConfig : config.getEnemies()) {
-                Spatial enemySpatial = createSprite(enemyConfig.getSprite() != null ? enemyConfig.getSprite() : "human");
-                float radius = enemyConfig.getRadius() > 0 ? enemyConfig.getRadius() : ((Number) enemySpatial.getUserData("radius")).floatValue();
-                enemySpatial.setUserData("radius", radius);
-                enemySpatial.setLocalTranslation(enemyConfig.getSpawnX(), enemyConfig.getSpawnY(), 4f);
-                enemySpatial.setQueueBucket(RenderQueue.Bucket.Gui);
-
-                EnemyMovementControl control = createMovementControl(enemyConfig);
-                enemySpatial.addControl(control);
-
-                enemies.add(enemySpatial);
-                enemyControls.add(control);
+            List<Enemy> enemies = simulation.getEnemies();
+            for (int i = 0; i < enemies.size(); i++) {
+                EnemyConfig enemyConfig = config.getEnemies().get(i);
+                String sprite = enemyConfig.getSprite() != null ? enemyConfig.getSprite() : "human";
+                SpriteBatch batch = enemyBatches.computeIfAbsent(sprite, this::createSpriteBatch);
+                if (enemyConfig.getRadius() <= 0) {
+                    enemies.get(i).setRadius(batch.getWidth() / 2);
+                }
+                Vector3f renderPosition = enemies.get(i).getPosition().clone();
+                enemyRenderPositions.add(renderPosition);
+                batch.add(renderPosition);
             }
         }
     }
 
-    private EnemyMovementControl createMovementControl(EnemyConfig config) {
-        float speed = config.getSpeed() > 0 ? config.getSpeed() : 200f;
-        String movementClass = config.getMovementClass();
-        if (movementClass == null) {
-            return new WanderingEnemyControl(perimeters.get(0), speed);
-        }
-        try {
-            Class<?> clazz = Class.forName(movementClass);
-            return (EnemyMovementControl) clazz.getConstructor(Perimeter.class, float.class).newInstance(perimeters.get(0), speed);
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
-            throw new RuntimeException("Could not create movement control: " + movementClass, e);
-        }
-    }
-
     private void setupUI() {
         BitmapFont guiFont = app.getAssetManager().loadFont("Font/Metal_Mania/MetalMania72.fnt");
         for (int i = 0; i < guiFont.getPageSize(); i++) {
@@ -209,12 +270,12 @@ public class LevelAppState extends BaseAppState implements ActionListener {
         System.out.println("Attaching player to guiNode: " + player.getName() + " at " + player.getLocalTranslation());
         System.out.println("Player has " + ((Node)player).getChildren().size() + " children");
         app.getGuiNode().attachChild(player);
-        for (Spatial enemy : enemies) {
-            app.getGuiNode().attachChild(enemy);
+        for (SpriteBatch batch : enemyBatches.values()) {
+            app.getGuiNode().attachChild(batch.getGeometry());
         }
-        app.getGuiNode().attachChild(perimeterGeoms);
-        app.getGuiNode().attachChild(dayField);
-        app.getGuiNode().attachChild(drawingPathGeom);
+        app.getGuiNode().attachChild(perimeterOutlines.getGeometry());
+        app.getGuiNode().attachChild(dayField.getGeometry());
+        app.getGuiNode().attachChild(drawingTrail.getGeometry());
         app.getGuiNode().attachChild(scoreText);
         app.getGuiNode().attachChild(percentageText);
 
@@ -242,133 +303,193 @@ public class LevelAppState extends BaseAppState implements ActionListener {
             }
         }
         inputManager.removeListener(this);
+        input.clear();
     }
 
     @Override
     protected void cleanup(Application app) {
         cleanupScene();
+        saveRecording();
+        if (captureSpeculator != null) {
+            captureSpeculator.clear();
+        }
+        if (captureExecutor != null) {
+            captureExecutor.shutdownNow();
+            captureExecutor = null;
+        }
     }
 
     @Override
     public void update(float tpf) {
-        PlayerControl control = player.getControl(PlayerControl.class);
-        if (control == null) return;
-        if (!(Boolean) player.getUserData("alive")) {
+        if (gameOver) {
             return;
         }
 
-        handleDrawingSounds(control);
-
-        for (int i = 0; i < enemyControls.size(); i++) {
-            enemyControls.get(i).setPerimeter(perimeters.get(perimeters.size() - 1));
+        int steps = timestep.advance(tpf);
+        for (int i = 0; i < steps && simulation.getOutcome() == null; i++) {
+            if (replay != null && !replay.applyInput(simulation, input)) {
+                input.clear();
+            }
+            int mask = InputTrace.mask(input);
+            int tick = simulation.getTick();
+            simulation.step(timestep.getStep(), input);
+            if (recording != null && simulation.getTick() != tick) {
+                recording.append(mask);
+            }
         }
-        checkCollisions(control);
-
-        if (gameOver) {
+        if (simulation.getOutcome() != null) {
+            endLevel(LevelOutcome.valueOf(simulation.getOutcome().name()), simulation.getCapturedPercentage());
             return;
         }
 
-        if (control.wasCollisionDetected()) {
-            Perimeter lastPerimeter = perimeters.get(perimeters.size() - 1);
-            Perimeter newPerimeter = perimeterManager.calculateNewPerimeter(lastPerimeter, control, enemies.isEmpty() ? player.getLocalTranslation() : enemies.get(0).getLocalTranslation());
-            perimeters.add(newPerimeter);
-
-            double lastPerimeterArea = currentPerimeterArea;
-            currentPerimeterArea = newPerimeter.getArea();
-            double capturedArea = lastPerimeterArea - currentPerimeterArea;
-            score += 5 * capturedArea * (capturedArea / originalPerimeterArea);
-
-            Geometry newPerimeterLine = perimeterRenderer.createPerimeterLine(newPerimeter.getVertices());
-            perimeterGeoms.attachChild(newPerimeterLine);
-
-            if (dayField != null) {
-                dayField.removeFromParent();
-            }
-            dayField = perimeterRenderer.createDayField(newPerimeter.getVertices());
-            app.getGuiNode().attachChild(dayField);
-
-            control.finalizeCollision(newPerimeter);
-
-            if (currentPerimeterArea / originalPerimeterArea <= 0.1) {
-                double percentage = (1 - (currentPerimeterArea / originalPerimeterArea)) * 100;
-                endLevel(LevelOutcome.WIN, percentage);
-                return;
-            }
+        Player simPlayer = simulation.getPlayer();
+        // A path that just closed is solved on the next step, from the speculation made for it.
+        if (simulation.isPathOpen()) {
+            captureSpeculator.speculate(simulation.getPerimeter(), simPlayer.getDrawingPath(), simPlayer.getHeading());
         }
+        float alpha = timestep.getAlpha();
+        syncPlayer(alpha);
+        syncEnemies(alpha);
 
-        perimeterRenderer.updateDrawingPathVisuals(drawingPathGeom, control.getVisualDrawingPath());
-        updateDrawingPathSparks(control.getVisualDrawingPath());
+        // The trail runs along the committed path and then to the player, who is its live tip.
+        Vector3f tip = simPlayer.getPosition();
+        if (simPlayer.isDrawing()) {
+            drawingTrail.update(simPlayer.getDrawingPath(), tip.x, tip.y);
+        } else {
+            drawingTrail.clear();
+        }
+        updateDrawingPathSparks(simPlayer, tip, tpf);
         sparkEffect.update(tpf);
 
         pulseTimer += tpf * 12f;
         float pulse = (float) (Math.sin(pulseTimer) * 0.45 + 0.55);
-        if (drawingPathGeom != null) {
-            Material mat = drawingPathGeom.getMaterial();
-            ColorRGBA baseGlow = new ColorRGBA(1f, 0.15f, 0.15f, 1f);
-            mat.setColor("GlowColor", baseGlow.mult(pulse));
+        if (drawingTrail != null) {
+            Material mat = drawingTrail.getGeometry().getMaterial();
+            mat.setColor("GlowColor", trailGlow.set(TRAIL_GLOW).multLocal(pulse));
         }
 
-        double percentage = (1 - (currentPerimeterArea / originalPerimeterArea)) * 100;
-        scoreText.setText(String.format("Score: %.0f",score));
+        double percentage = simulation.getCapturedPercentage();
+        scoreText.setText(String.format("Score: %.0f", simulation.getScore()));
         percentageText.setText(String.format("%.2f%%", percentage));
         percentageText.setLocalTranslation(app.getCamera().getWidth() - percentageText.getLineWidth() - 10, app.getCamera().getHeight() - 10, 5);
     }
 
-    private void handleDrawingSounds(PlayerControl control) {
-        switch (control.getDrawingState()) {
-            case STARTING_DRAW:
-                sound.playSound("Audio/cut-start.ogg", 0.5f);
-                sound.startLoop("Audio/cut-active.ogg", "drawing", 0.3f);
-                control.advanceDrawingState();
-                break;
-            case ENDING_DRAW:
-                sound.stopLoop("drawing");
-                sound.playSound("Audio/cut-end.ogg", 0.5f);
-                control.advanceDrawingState();
-                break;
+    /**
+     * Mirrors the simulated player into its spatial, {@code alpha} of the way from the previous
+     * step to the latest.
+     */
+    private void syncPlayer(float alpha) {
+        Player simPlayer = simulation.getPlayer();
+        playerRenderPosition.interpolateLocal(simPlayer.getPreviousPosition(), simPlayer.getPosition(), alpha);
+        player.setLocalTranslation(playerRenderPosition.x, playerRenderPosition.y, PLAYER_Z);
+
+        AnimatedSpriteControl animControl = player.getControl(AnimatedSpriteControl.class);
+        if (animControl == null) {
+            return; // Not an animated sprite
+        }
+        Vector3f direction = simPlayer.getDirection();
+        if (direction.lengthSquared() == 0) {
+            animControl.setDirection(AnimatedSpriteControl.Direction.IDLE);
+        } else if (Math.abs(direction.y) > Math.abs(direction.x)) {
+            // Vertical movement dominates
+            animControl.setDirection(direction.y > 0 ? AnimatedSpriteControl.Direction.UP : AnimatedSpriteControl.Direction.DOWN);
+        } else {
+            // Horizontal movement dominates
+            animControl.setDirection(direction.x > 0 ? AnimatedSpriteControl.Direction.RIGHT : AnimatedSpriteControl.Direction.LEFT);
+        }
+    }
+
+    /**
+     * Interpolates the positions the enemy batches draw.
+     */
+    private void syncEnemies(float alpha) {
+        List<Enemy> enemies = simulation.getEnemies();
+        for (int i = 0; i < enemyRenderPositions.size(); i++) {
+            Enemy enemy = enemies.get(i);
+            enemyRenderPositions.get(i).interpolateLocal(enemy.getPreviousPosition(), enemy.getPosition(), alpha);
+        }
+    }
+
+    /**
+     * Solves a capture for the simulation. Usually it was already computed while the player was
+     * drawing towards the wall; otherwise it runs on the worker together with the day field
+     * triangulation.
+     */
+    private CompletableFuture<CaptureResult> solveCapture(Perimeter lastPerimeter, List<Vector3f> path, Vector3f enemyPosition) {
+        CaptureResult speculated = captureSpeculator.take(lastPerimeter, path, enemyPosition);
+        if (speculated != null) {
+            return CompletableFuture.completedFuture(speculated);
+        }
+        PerimeterManager perimeterManager = simulation.getPerimeterManager();
+        return CompletableFuture.supplyAsync(() -> {
+            CaptureResult capture = perimeterManager.calculateCapture(lastPerimeter, path, enemyPosition);
+            return capture.withDayFieldTriangles(perimeterRenderer.triangulateDayField(capture.getPerimeter()));
+        }, captureExecutor);
+    }
+
+    @Override
+    public void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+        if (!changed) {
+            return;
         }
+        // The new outline is the old one with the path cut in, so the path is all that is new.
+        perimeterOutlines.addPath(path);
+        dayField.update(result);
+    }
+
+    @Override
+    public void onDrawingStarted() {
+        sound.playSound("Audio/cut-start.ogg", 0.5f);
+        sound.startLoop("Audio/cut-active.ogg", "drawing", 0.3f);
+    }
+
+    @Override
+    public void onDrawingEnded() {
+        sound.stopLoop("drawing");
+        sound.playSound("Audio/cut-end.ogg", 0.5f);
     }
 
     @Override
     public void onAction(String name, boolean isPressed, float tpf) {
-        if ((Boolean) player.getUserData("alive")) {
-            PlayerControl control = player.getControl(PlayerControl.class);
-            if (control != null) {
-                switch (name) {
-                    case "up": control.up = isPressed; break;
-                    case "down": control.down = isPressed; break;
-                    case "left": control.left = isPressed; break;
-                    case "right": control.right = isPressed; break;
-                    case "draw":
-                        if (!isPressed) { // On key release
-                            control.toggleDrawing();
-                        }
-                        break;
-                }
+        if (replay == null && simulation.getPlayer().isAlive()) {
+            switch (name) {
+                case "up": input.up = isPressed; break;
+                case "down": input.down = isPressed; break;
+                case "left": input.left = isPressed; break;
+                case "right": input.right = isPressed; break;
+                case "draw":
+                    if (!isPressed) { // On key release
+                        input.toggleDrawing = true;
+                    }
+                    break;
             }
         }
     }
 
     private Spatial createSprite(String name) {
         Node node = new Node(name);
-        String texturePath = "Textures/" + name + ".png";
-        Texture2D tex = (Texture2D) app.getAssetManager().loadTexture(texturePath);
-        Picture pic = new Picture(name);
-        pic.setTexture(app.getAssetManager(), tex, true);
+        Material material = SpriteMaterialCache.get(app.getAssetManager(), name);
+        Texture2D tex = SpriteMaterialCache.getTexture(material);
         float width = tex.getImage().getWidth();
         float height = tex.getImage().getHeight();
-        pic.setWidth(width);
-        pic.setHeight(height);
+        Geometry pic = new Geometry(name, new Quad(width, height));
+        pic.setMaterial(material);
+        pic.setQueueBucket(RenderQueue.Bucket.Gui);
+        pic.setCullHint(Spatial.CullHint.Never);
         pic.move(-width / 2f, -height / 2f, 0);
 
-        Material picMat = new Material(app.getAssetManager(), "Common/MatDefs/Gui/Gui.j3md");
-        picMat.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.AlphaAdditive);
-        node.setMaterial(picMat);
-
         node.setUserData("radius", width / 2);
         node.attachChild(pic);
         return node;
     }
+
+    private SpriteBatch createSpriteBatch(String name) {
+        Material material = SpriteMaterialCache.get(app.getAssetManager(), name);
+        Texture2D tex = SpriteMaterialCache.getTexture(material);
+        SpriteBatch batch = new SpriteBatch(name, material, tex.getImage().getWidth(), tex.getImage().getHeight());
+        batch.getGeometry().setLocalTranslation(0, 0, ENEMY_Z);
+        return batch;
+    }
     
     private Spatial createAnimatedSprite(String basePath) {
         Node node = new Node("AnimatedPlayer");
@@ -379,73 +500,6 @@ public class LevelAppState extends BaseAppState implements ActionListener {
         return node;
     }
 
-    private void checkCollisions(PlayerControl control) {
-        // Victor is only vulnerable when drawing a path
-        if (!control.isDrawing()) {
-            return;
-        }
-        
-        Vector3f playerPos = player.getLocalTranslation();
-        float playerRadius = ((Number) player.getUserData("radius")).floatValue();
-
-        for (Spatial enemy : enemies) {
-            Vector3f enemyPos = enemy.getLocalTranslation();
-            float enemyRadius = ((Number) enemy.getUserData("radius")).floatValue();
-
-            // Check direct collision with enemy
-            if (playerPos.distance(enemyPos) <= playerRadius + enemyRadius) {
-                handlePlayerDeath();
-                return;
-            }
-
-            // Check if drawing path intersects enemy
-            List<Vector3f> path = control.getVisualDrawingPath();
-            if (path != null && !path.isEmpty()) {
-                if (isCircleIntersectingPolyline(enemyPos, enemyRadius, path)) {
-                    handlePlayerDeath();
-                    return;
-                }
-            }
-        }
-    }
-
-    private boolean isCircleIntersectingPolyline(Vector3f center, float radius, List<Vector3f> polyline) {
-        for (int i = 0; i < polyline.size() - 1; i++) {
-            Vector3f a = polyline.get(i);
-            Vector3f b = polyline.get(i + 1);
-            float dist = distanceToSegment(center, a, b);
-            if (dist <= radius) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private float distanceToSegment(Vector3f point, Vector3f start, Vector3f end) {
-        Vector3f seg = end.subtract(start);
-        Vector3f toPoint = point.subtract(start);
-        float segLenSq = seg.x * seg.x + seg.y * seg.y;
-        if (segLenSq == 0f) {
-            return point.distance(start);
-        }
-        float t = Math.max(0f, Math.min(1f, (toPoint.x * seg.x + toPoint.y * seg.y) / segLenSq));
-        Vector3f projection = start.add(seg.mult(t));
-        return projection.distance(point);
-    }
-
-    private void handlePlayerDeath() {
-        if (gameOver) {
-            return;
-        }
-        player.setUserData("alive", false);
-        PlayerControl control = player.getControl(PlayerControl.class);
-        if (control != null) {
-            control.reset();
-        }
-        double percentage = (1 - (currentPerimeterArea / originalPerimeterArea)) * 100;
-        endLevel(LevelOutcome.LOSE, percentage);
-    }
-
     private void endLevel(LevelOutcome outcome, double percentage) {
         if (gameOver) {
             return;
@@ -457,10 +511,36 @@ public class LevelAppState extends BaseAppState implements ActionListener {
         cleanupScene();
         app.getStateManager().detach(this);
         if (resultListener != null) {
-            resultListener.onLevelCompleted(outcome, score, percentage);
+            resultListener.onLevelCompleted(outcome, simulation.getScore(), percentage);
         } else {
             String title = outcome == LevelOutcome.WIN ? "YOU WIN" : "YOU LOSE";
-            app.getStateManager().attach(new LevelSummaryAppState(title, score, percentage, null));
+            app.getStateManager().attach(new LevelSummaryAppState(title, simulation.getScore(), percentage, null));
+        }
+    }
+
+    /**
+     * Writes the recorded run, if any, to the replay directory. A run that was left before it
+     * ended is saved too, without an outcome and with the score it had so far, which is what its
+     * replay ends with.
+     */
+    private void saveRecording() {
+        if (recording == null) {
+            return;
+        }
+        InputTrace trace = recording;
+        recording = null;
+        trace.setResult(simulation.getOutcome(), simulation.getScore());
+        String name = levelPath.substring(levelPath.lastIndexOf('/') + 1).replace(".json", "");
+        Path directory = Paths.get(System.getProperty("vampires.replayDir", REPLAY_DIRECTORY));
+        Path file = directory.resolve(name + "-" + LocalDateTime.now().format(REPLAY_TIMESTAMP) + InputTrace.FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream stream = Files.newOutputStream(file)) {
+                trace.write(stream);
+            }
+            logger.info("Saved replay " + file + " (" + trace.getTickCount() + " ticks, " + trace.getRunCount() + " runs)");
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not save replay " + file, e);
         }
     }
 
@@ -471,21 +551,19 @@ public class LevelAppState extends BaseAppState implements ActionListener {
         if (player != null) {
             player.removeFromParent();
         }
-        for (Spatial enemy : enemies) {
-            enemy.removeFromParent();
+        for (SpriteBatch batch : enemyBatches.values()) {
+            batch.getGeometry().removeFromParent();
         }
-        enemies.clear();
-        enemyControls.clear();
-        if (perimeterGeoms != null) {
-            perimeterGeoms.removeFromParent();
-            perimeterGeoms.detachAllChildren();
+        enemyBatches.clear();
+        if (perimeterOutlines != null) {
+            perimeterOutlines.getGeometry().removeFromParent();
         }
         if (dayField != null) {
-            dayField.removeFromParent();
+            dayField.getGeometry().removeFromParent();
             dayField = null;
         }
-        if (drawingPathGeom != null) {
-            drawingPathGeom.removeFromParent();
+        if (drawingTrail != null) {
+            drawingTrail.getGeometry().removeFromParent();
         }
         if (sparkEffect != null) {
             sparkEffect.clear();
@@ -498,17 +576,16 @@ public class LevelAppState extends BaseAppState implements ActionListener {
         }
     }
 
-    private void updateDrawingPathSparks(List<Vector3f> path) {
+    private void updateDrawingPathSparks(Player simPlayer, Vector3f tip, float tpf) {
         if (sparkEffect == null) {
             return;
         }
 
-        if (path == null || path.size() < 2) {
+        if (!simPlayer.isDrawing() || simPlayer.getDrawingPath().isEmpty()) {
             return;
         }
 
-        // Emit a few sparks at the tip of the drawing path
-        Vector3f tip = path.get(path.size() - 1);
-        sparkEffect.emitSparks(tip, 2);
+        // Emit sparks at the tip of the drawing path
+        sparkEffect.emit(tip, tpf);
     }
 }
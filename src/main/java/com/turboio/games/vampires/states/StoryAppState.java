@@ -63,8 +63,9 @@ public class StoryAppState extends BaseAppState implements LevelAppState.LevelRe
 
     private void startLevel(LevelNodeConfig config) {
         try {
-            LevelConfig levelConfig = LevelLoader.load(resolveLevelPath(config.getLevel()));
-            activeLevel = new LevelAppState(levelConfig, this);
+            String levelPath = resolveLevelPath(config.getLevel());
+            LevelConfig levelConfig = LevelLoader.load(levelPath);
+            activeLevel = new LevelAppState(levelPath, levelConfig, this);
             getStateManager().attach(activeLevel);
         } catch (IOException e) {
             throw new RuntimeException("Failed to load level: " + config.getLevel(), e);
@@ -0,0 +1,13 @@
+#import "Common/ShaderLib/GLSLCompat.glsllib"
+
+uniform sampler2D m_ColorMap;
+uniform sampler2D m_Mask;
+
+varying vec2 texCoord;
+
+void main(){
+    vec4 color = texture2D(m_ColorMap, texCoord);
+    // Luminance8 reads back as (L, L, L, 1) or (L, 0, 0, 1) depending on the GL profile.
+    color.a *= texture2D(m_Mask, texCoord).r;
+    gl_FragColor = color;
+}
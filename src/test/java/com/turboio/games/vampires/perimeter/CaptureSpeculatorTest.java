@@ -0,0 +1,71 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CaptureSpeculatorTest {
+
+    // A field with a diagonal wall at the bottom left.
+    private static final Perimeter FIELD = new Perimeter(List.of(new Vector3f(64, 64, 0), new Vector3f(1216, 64, 0),
+            new Vector3f(1216, 606, 0), new Vector3f(300, 606, 0), new Vector3f(64, 400, 0)));
+    private static final Vector3f ENEMY = new Vector3f(900, 400, 0);
+
+    private final PerimeterManager manager = new PerimeterManager();
+    private final CaptureSpeculator speculator = new CaptureSpeculator(Runnable::run, manager,
+            new PerimeterRenderer(null, 1280, 720));
+
+    @Test
+    void speculatedCaptureIsTheSynchronousOne() {
+        List<Vector3f> path = path(700, 64, 700, 500);
+        speculator.speculate(FIELD, path, new Vector3f(-1, 0, 0));
+        Vector3f closing = CaptureSpeculator.castToBoundary(FIELD, 700, 500, -1, 0);
+        path.add(closing);
+
+        CaptureResult speculated = speculator.take(FIELD, path, ENEMY);
+        CaptureResult synchronous = manager.calculateCapture(FIELD, path, ENEMY);
+
+        assertNotNull(speculated);
+        assertNotNull(speculated.getDayFieldTriangles());
+        assertArrayEquals(synchronous.getPerimeter().copyCoordinates(), speculated.getPerimeter().copyCoordinates());
+        assertEquals(synchronous.getCapturedArea(), speculated.getCapturedArea());
+    }
+
+    @Test
+    void nearMissIsComputedFromScratch() {
+        List<Vector3f> path = path(700, 64, 700, 500);
+        speculator.speculate(FIELD, path, new Vector3f(-1, 0, 0));
+        Vector3f closing = CaptureSpeculator.castToBoundary(FIELD, 700, 500, -1, 0);
+        // Where the player's last move met the wall, a rounding error away from the ray's hit.
+        path.add(new Vector3f(closing.x + 0.005f, closing.y, 0));
+
+        assertNull(speculator.take(FIELD, path, ENEMY));
+    }
+
+    @Test
+    void speculationIsForOnePerimeterAndPath() {
+        List<Vector3f> path = path(700, 64, 700, 300);
+        speculator.speculate(FIELD, path, new Vector3f(-1, 0, 0));
+        List<Vector3f> other = path(700, 64, 700, 310, 64, 310);
+
+        assertNull(speculator.take(FIELD, other, ENEMY));
+        // Taking consumes the speculation.
+        path.add(new Vector3f(64, 300, 0));
+        assertNull(speculator.take(FIELD, path, ENEMY));
+    }
+
+    private static List<Vector3f> path(float... xy) {
+        List<Vector3f> points = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) {
+            points.add(new Vector3f(xy[i], xy[i + 1], 0));
+        }
+        return points;
+    }
+}
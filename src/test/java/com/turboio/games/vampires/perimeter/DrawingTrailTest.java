@@ -0,0 +1,79 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DrawingTrailTest {
+
+    @Test
+    void incrementalUpdatesMatchAFullRebuild() {
+        DrawingTrail trail = new DrawingTrail(null);
+        Random random = new Random(2);
+        for (int run = 0; run < 10; run++) {
+            List<Vector3f> path = new ArrayList<>();
+            float x = 300 + random.nextFloat() * 100;
+            float y = 300;
+            path.add(new Vector3f(x, y, 0));
+            // Commits often enough that the buffers have to grow a few times.
+            for (int frame = 0; frame < 300; frame++) {
+                x += random.nextFloat() * 4 - 1;
+                y += random.nextFloat() * 4 - 1;
+                if (random.nextInt(2) == 0) {
+                    path.add(new Vector3f(x, y, 0));
+                }
+                trail.update(path, x, y);
+
+                List<Vector3f> visualPath = new ArrayList<>(path);
+                visualPath.add(new Vector3f(x, y, 0));
+                Mesh mesh = trail.getGeometry().getMesh();
+                FloatBuffer positions = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+                float[] expected = rebuild(visualPath);
+                assertEquals(expected.length, positions.limit());
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(expected[i], positions.get(i), 1e-3f, "Run " + run + ", frame " + frame + ", float " + i);
+                }
+                assertEquals((visualPath.size() - 1) * 2, mesh.getTriangleCount());
+            }
+            trail.clear();
+            assertEquals(Spatial.CullHint.Always, trail.getGeometry().getCullHint());
+        }
+    }
+
+    /**
+     * Left and right vertex positions for the whole path, computed from scratch.
+     */
+    private static float[] rebuild(List<Vector3f> path) {
+        int size = path.size();
+        float[] positions = new float[size * 6];
+        for (int i = 0; i < size; i++) {
+            Vector3f point = path.get(i);
+            Vector3f prev = path.get(Math.max(0, i - 1));
+            Vector3f next = path.get(Math.min(size - 1, i + 1));
+            Vector3f dir = next.subtract(prev);
+            if (dir.lengthSquared() < 1e-4f) {
+                dir.set(0, 1, 0);
+            } else {
+                dir.normalizeLocal();
+            }
+            float offsetX = -dir.y * 2.5f;
+            float offsetY = dir.x * 2.5f;
+            positions[i * 6] = point.x + offsetX;
+            positions[i * 6 + 1] = point.y + offsetY;
+            positions[i * 6 + 2] = 3f;
+            positions[i * 6 + 3] = point.x - offsetX;
+            positions[i * 6 + 4] = point.y - offsetY;
+            positions[i * 6 + 5] = 3f;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,121 @@
+package com.turboio.games.vampires.perimeter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EarcutTriangulatorTest {
+
+    private final EarcutTriangulator earcut = new EarcutTriangulator();
+
+    @Test
+    void triangulatesSquare() {
+        Perimeter square = perimeter(0, 0, 100, 0, 100, 100, 0, 100);
+        int[] triangles = earcut.triangulate(square);
+        assertEquals(6, triangles.length);
+        assertCoversArea(square, triangles);
+    }
+
+    @Test
+    void handlesCollinearVertices() {
+        // A rectangle with extra vertices along every edge, as left behind by captures.
+        Perimeter perimeter = perimeter(0, 0, 50, 0, 100, 0, 200, 0, 200, 50, 200, 100, 150, 100, 100, 100, 0, 100, 0, 50);
+        assertCoversArea(perimeter, earcut.triangulate(perimeter));
+    }
+
+    @Test
+    void handlesZeroWidthSpike() {
+        // The path went out to (150, 50) and straight back along itself.
+        Perimeter perimeter = perimeter(0, 0, 100, 0, 100, 50, 150, 50, 100, 50, 100, 100, 0, 100);
+        assertCoversArea(perimeter, earcut.triangulate(perimeter));
+    }
+
+    @Test
+    void handlesThinSliver() {
+        Perimeter perimeter = perimeter(0, 0, 1000, 0, 1000, 0.001f, 500, 0.002f);
+        assertCoversArea(perimeter, earcut.triangulate(perimeter));
+    }
+
+    @Test
+    void handlesLobesTouchingAtAVertex() {
+        // Two squares sharing the vertex (100, 100).
+        Perimeter perimeter = perimeter(0, 0, 100, 0, 100, 100, 200, 100, 200, 200, 100, 200, 100, 100, 0, 100);
+        assertCoversArea(perimeter, earcut.triangulate(perimeter));
+    }
+
+    @Test
+    void handlesNarrowCorridors() {
+        // A comb with one-unit gaps between long teeth, like a run of thin captures.
+        int teeth = 40;
+        float[] xy = new float[(teeth * 4 + 2) * 2];
+        int k = 0;
+        for (int i = 0; i < teeth; i++) {
+            float left = i * 10f;
+            xy[k++] = left;
+            xy[k++] = 0;
+            xy[k++] = left + 9f;
+            xy[k++] = 0;
+            xy[k++] = left + 9f;
+            xy[k++] = 500f;
+            xy[k++] = left + 10f;
+            xy[k++] = 500f;
+        }
+        xy[k++] = teeth * 10f;
+        xy[k++] = 600f;
+        xy[k++] = 0;
+        xy[k++] = 600f;
+        Perimeter comb = new Perimeter(xy, k / 2);
+        assertCoversArea(comb, earcut.triangulate(comb));
+    }
+
+    @Test
+    void matchesPoly2TriAreaOnRandomPolygons() {
+        Poly2TriTriangulator poly2tri = new Poly2TriTriangulator();
+        Random random = new Random(3);
+        for (int polygon = 0; polygon < 100; polygon++) {
+            // Large enough that many of them use the z-order hashed path.
+            int n = 3 + random.nextInt(polygon % 2 == 0 ? 60 : 2000);
+            float[] xy = new float[n * 2];
+            for (int i = 0; i < n; i++) {
+                double angle = Math.PI * 2 * i / n;
+                float radius = 50f + random.nextFloat() * 450f;
+                xy[2 * i] = 600f + radius * (float) Math.cos(angle);
+                xy[2 * i + 1] = 500f + radius * (float) Math.sin(angle);
+            }
+            Perimeter star = new Perimeter(xy, n);
+            int[] expected = poly2tri.triangulate(star);
+            assertNotNull(expected);
+            assertEquals(triangleArea(star, expected), triangleArea(star, earcut.triangulate(star)),
+                    1e-6 * star.getArea(), "Area mismatch for polygon " + polygon);
+            assertCoversArea(star, earcut.triangulate(star));
+        }
+    }
+
+    private static void assertCoversArea(Perimeter perimeter, int[] triangles) {
+        assertNotNull(triangles);
+        assertEquals(0, triangles.length % 3);
+        assertTrue(triangles.length / 3 <= perimeter.size() - 2, "Too many triangles: " + triangles.length / 3);
+        for (int index : triangles) {
+            assertTrue(index >= 0 && index < perimeter.size(), "Bad index " + index);
+        }
+        assertEquals(perimeter.getArea(), triangleArea(perimeter, triangles), 1e-6 * perimeter.getArea());
+    }
+
+    private static double triangleArea(Perimeter perimeter, int[] triangles) {
+        double area = 0;
+        for (int t = 0; t < triangles.length; t += 3) {
+            int a = triangles[t], b = triangles[t + 1], c = triangles[t + 2];
+            area += Math.abs(((double) perimeter.x(b) - perimeter.x(a)) * ((double) perimeter.y(c) - perimeter.y(a))
+                    - ((double) perimeter.x(c) - perimeter.x(a)) * ((double) perimeter.y(b) - perimeter.y(a))) / 2;
+        }
+        return area;
+    }
+
+    private static Perimeter perimeter(float... xy) {
+        return new Perimeter(xy, xy.length / 2);
+    }
+}
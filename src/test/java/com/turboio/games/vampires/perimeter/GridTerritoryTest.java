@@ -0,0 +1,138 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GridTerritoryTest {
+
+    private static final float CELL_SIZE = 4f;
+    // 1104 x 752, on cell boundaries so the grid covers it exactly.
+    private static final Perimeter FIELD = new Perimeter(path(48, 48, 1152, 48, 1152, 800, 48, 800));
+
+    @Test
+    void coversThePerimeter() {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+
+        assertEquals(FIELD.getArea(), grid.getOpenArea());
+        assertTrue(grid.contains(50, 50));
+        assertFalse(grid.contains(46, 50));
+        assertFalse(grid.contains(-10, 2000));
+    }
+
+    @Test
+    void straightCutMatchesTheVectorCapture() {
+        assertCaptureMatches(path(300, 48, 300, 800), new Vector3f(700, 400, 0));
+    }
+
+    @Test
+    void lCutMatchesTheVectorCapture() {
+        assertCaptureMatches(path(700, 48, 700, 500, 1152, 500), new Vector3f(300, 400, 0));
+        // The enemy inside the corner keeps it, so the rest of the field goes.
+        assertCaptureMatches(path(700, 48, 700, 500, 1152, 500), new Vector3f(900, 300, 0));
+    }
+
+    @Test
+    void danglingPathCapturesNothing() {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+        int open = grid.getOpenCellCount();
+
+        assertEquals(0, grid.capture(path(300, 48, 300, 400, 600, 400), new Vector3f(700, 600, 0)));
+        assertEquals(open, grid.getOpenCellCount());
+        assertTrue(grid.contains(300, 200));
+    }
+
+    @Test
+    void enemyOnThePathLosesTheSmallerSide() {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+        List<Vector3f> path = path(300, 48, 300, 800);
+
+        grid.capture(path, new Vector3f(300, 400, 0));
+
+        PolygonSplitter.Split split = PolygonSplitter.split(FIELD, path, 0.1f);
+        double smaller = Math.min(split.getFirstArea(), split.getSecondArea());
+        assertEquals(smaller, FIELD.getArea() - grid.getOpenArea(), bandArea(path));
+        assertFalse(grid.contains(100, 400));
+        assertTrue(grid.contains(700, 400));
+    }
+
+    @Test
+    void capturesAddUp() {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+        Vector3f enemy = new Vector3f(700, 400, 0);
+        int first = grid.capture(path(300, 48, 300, 800), enemy);
+        int second = grid.capture(path(1000, 48, 1000, 800), enemy);
+
+        assertEquals(first + second, FIELD.getArea() / (CELL_SIZE * CELL_SIZE) - grid.getOpenCellCount());
+        // Cutting through captured ground closes nothing new off.
+        assertEquals(0, grid.capture(path(100, 48, 100, 800), enemy));
+    }
+
+    @Test
+    void dirtyRegionCoversTheCapturedCells() {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+        assertFalse(grid.hasDirtyRegion());
+
+        // Nothing closed off, nothing changed.
+        grid.capture(path(300, 48, 300, 400, 600, 400), new Vector3f(700, 600, 0));
+        assertFalse(grid.hasDirtyRegion());
+
+        grid.capture(path(300, 48, 300, 800), new Vector3f(700, 400, 0));
+        assertTrue(grid.hasDirtyRegion());
+        assertEquals(12, grid.getDirtyMinColumn());
+        assertEquals(12, grid.getDirtyMinRow());
+        assertEquals(75, grid.getDirtyMaxColumn());
+        assertEquals(199, grid.getDirtyMaxRow());
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int column = 0; column < grid.getColumns(); column++) {
+                boolean inside = column >= 12 && column <= 75 && row >= 12 && row <= 199;
+                assertTrue(inside || grid.isOpen(column, row) == FIELD.contains((column + 0.5f) * CELL_SIZE, (row + 0.5f) * CELL_SIZE),
+                        "Cell " + column + ", " + row + " changed outside the dirty region");
+            }
+        }
+
+        grid.clearDirtyRegion();
+        assertFalse(grid.hasDirtyRegion());
+    }
+
+    /**
+     * Captures the path on a fresh grid and on the vector perimeter. The grid also claims the cells
+     * under the path, so it may take up to a band of one cell along the path more.
+     */
+    private static void assertCaptureMatches(List<Vector3f> path, Vector3f enemy) {
+        GridTerritory grid = new GridTerritory(FIELD, 1200, 900, CELL_SIZE);
+        int cells = grid.capture(path, enemy);
+        PerimeterManager manager = new PerimeterManager();
+        CaptureResult vector = manager.calculateCapture(FIELD, path, enemy);
+
+        double captured = cells * CELL_SIZE * CELL_SIZE;
+        assertEquals(FIELD.getArea() - grid.getOpenArea(), captured);
+        assertTrue(captured >= vector.getCapturedArea(), captured + " < " + vector.getCapturedArea());
+        assertEquals(vector.getCapturedArea(), captured, bandArea(path));
+        // The enemy keeps its side on both.
+        assertTrue(grid.contains(enemy));
+        assertTrue(vector.getPerimeter().contains(enemy));
+    }
+
+    private static double bandArea(List<Vector3f> path) {
+        double length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            length += path.get(i).distance(path.get(i + 1));
+        }
+        return (length + CELL_SIZE) * CELL_SIZE;
+    }
+
+    private static List<Vector3f> path(float... xy) {
+        List<Vector3f> points = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) {
+            points.add(new Vector3f(xy[i], xy[i + 1], 0));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,89 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PerimeterEdgeIndexTest {
+
+    @Test
+    void queriesMatchABruteForceScan() {
+        Random random = new Random(3);
+        for (int polygon = 0; polygon < 200; polygon++) {
+            Perimeter perimeter = new Perimeter(randomPolygon(random, 3 + random.nextInt(300)));
+            PerimeterEdgeIndex index = perimeter.getEdgeIndex();
+            assertEquals(perimeter.size(), index.getEdgeCount());
+
+            for (int query = 0; query < 300; query++) {
+                // Mostly around the polygon, some far outside the grid.
+                float spread = query % 5 == 0 ? 5000f : 1200f;
+                float x = 600f + (random.nextFloat() - 0.5f) * spread;
+                float y = 450f + (random.nextFloat() - 0.5f) * spread;
+                float radius = random.nextFloat() * (query % 3 == 0 ? 400f : 40f);
+                String where = "polygon " + polygon + " at (" + x + ", " + y + ")";
+
+                float nearest = Float.POSITIVE_INFINITY;
+                for (int edge = 0; edge < perimeter.size(); edge++) {
+                    nearest = Math.min(nearest, distanceSquared(perimeter, edge, x, y));
+                }
+
+                assertEquals(nearest < radius * radius, index.anyEdgeWithin(x, y, radius), where + " radius " + radius);
+
+                int found = index.nearestEdge(x, y, Float.POSITIVE_INFINITY);
+                assertEquals(nearest, distanceSquared(perimeter, found, x, y), where);
+
+                int bounded = index.nearestEdge(x, y, radius);
+                if (nearest < radius * radius) {
+                    assertEquals(nearest, distanceSquared(perimeter, bounded, x, y), where + " within " + radius);
+                } else {
+                    assertEquals(-1, bounded, where + " within " + radius);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nearestEdgePrefersTheLowerIndexOnTies() {
+        Perimeter perimeter = new Perimeter(List.of(new Vector3f(0, 0, 0), new Vector3f(100, 0, 0),
+                new Vector3f(100, 100, 0), new Vector3f(0, 100, 0)));
+
+        // Equally far from edges 0 (bottom) and 1 (right).
+        assertEquals(0, perimeter.getEdgeIndex().nearestEdge(150, -50, Float.POSITIVE_INFINITY));
+        assertEquals(0, perimeter.getEdgeIndex().nearestEdge(50, 50, Float.POSITIVE_INFINITY));
+    }
+
+    /**
+     * A star-shaped polygon, with some vertices doubled a hair apart so it has edges of almost
+     * no length.
+     */
+    private static List<Vector3f> randomPolygon(Random random, int count) {
+        List<Vector3f> vertices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double angle = (i + random.nextDouble() * 0.9) * Math.PI * 2 / count;
+            double radius = 50 + random.nextDouble() * 400;
+            Vector3f vertex = new Vector3f((float) (600 + radius * Math.cos(angle)), (float) (450 + radius * Math.sin(angle)), 0f);
+            vertices.add(vertex);
+            if (random.nextInt(8) == 0) {
+                vertices.add(vertex.add(0.001f, 0.001f, 0f));
+            }
+        }
+        return vertices;
+    }
+
+    private static float distanceSquared(Perimeter perimeter, int edge, float x, float y) {
+        int next = edge + 1 == perimeter.size() ? 0 : edge + 1;
+        float ax = perimeter.x(edge), ay = perimeter.y(edge);
+        float sx = perimeter.x(next) - ax;
+        float sy = perimeter.y(next) - ay;
+        float lengthSquared = sx * sx + sy * sy;
+        float t = lengthSquared == 0f ? 0f : Math.max(0f, Math.min(1f, ((x - ax) * sx + (y - ay) * sy) / lengthSquared));
+        float dx = ax + sx * t - x;
+        float dy = ay + sy * t - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,164 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PerimeterRailTest {
+
+    private static final float DIAGONAL = (float) Math.sqrt(0.5);
+
+    // 400 x 300, counter-clockwise from the origin: edges 0 bottom, 1 right, 2 top, 3 left.
+    private static final Perimeter RECTANGLE = perimeter(0, 0, 400, 0, 400, 300, 0, 300);
+    // The rectangle with its top right 300 x 200 cut away; vertex 3, (100, 100), is the inner corner.
+    private static final Perimeter L_SHAPE = perimeter(0, 0, 400, 0, 400, 100, 100, 100, 100, 300, 0, 300);
+
+    @Test
+    void locateWrapsAroundTheRing() {
+        PerimeterRail rail = RECTANGLE.getRail();
+        assertEquals(1400.0, rail.getLength(), 1e-9);
+
+        assertPosition(0, 0.125f, rail.locate(1400 + 50, new PerimeterRail.Position()));
+        assertPosition(3, 250f / 300f, rail.locate(-50, new PerimeterRail.Position()));
+        assertPosition(1, 0.5f, rail.locate(-1400 * 3 + 550, new PerimeterRail.Position()));
+        // Exactly on a vertex is the start of the next edge.
+        assertPosition(2, 0f, rail.locate(700, new PerimeterRail.Position()));
+
+        PerimeterRail.Position position = rail.locate(1234.5, new PerimeterRail.Position());
+        assertEquals(1234.5, rail.arcLength(position), 1e-3);
+
+        PerimeterRail lRail = L_SHAPE.getRail();
+        assertEquals(1400.0, lRail.getLength(), 1e-9);
+        assertPoint(400, 50, lRail, lRail.locate(1400 * 2 + 450, new PerimeterRail.Position()));
+    }
+
+    @Test
+    void positionsNearAVertexSnapOntoIt() {
+        PerimeterRail rail = RECTANGLE.getRail();
+
+        assertPosition(1, 0f, rail.locate(399.9995, new PerimeterRail.Position()));
+        assertPosition(0, 0f, rail.locate(1399.9995, new PerimeterRail.Position()));
+        assertPosition(1, 0f, rail.project(400.0005f, -3f, new PerimeterRail.Position()));
+        assertPosition(0, 0.5f, rail.project(200f, -10f, new PerimeterRail.Position()));
+        assertPosition(2, 0.25f, rail.project(300f, 280f, new PerimeterRail.Position()));
+    }
+
+    @Test
+    void advanceMovesByTheInputAlongTheEdge() {
+        PerimeterRail rail = RECTANGLE.getRail();
+        PerimeterRail.Position position = rail.project(200f, 0f, new PerimeterRail.Position());
+
+        rail.advance(position, 1f, 0f, 100f);
+        assertPoint(300, 0, rail, position);
+        // Only the component along the edge counts.
+        rail.advance(position, -DIAGONAL, DIAGONAL, 100f);
+        assertPoint(300 - 100 * DIAGONAL, 0, rail, position);
+        // Input across the edge does not move at all.
+        rail.advance(position, 0f, 1f, 100f);
+        assertPoint(300 - 100 * DIAGONAL, 0, rail, position);
+    }
+
+    @Test
+    void advanceStopsAtCornersTheInputDoesNotTurn() {
+        PerimeterRail rail = RECTANGLE.getRail();
+        PerimeterRail.Position position = rail.project(300f, 0f, new PerimeterRail.Position());
+
+        rail.advance(position, 1f, 0f, 150f);
+        assertPosition(1, 0f, position);
+        assertPoint(400, 0, rail, position);
+
+        // Diagonal input turns the corner with what is left of it.
+        position = rail.project(300f, 0f, new PerimeterRail.Position());
+        rail.advance(position, DIAGONAL, DIAGONAL, 200f);
+        assertPoint(400, (200 - 100 / DIAGONAL) * DIAGONAL, rail, position);
+    }
+
+    @Test
+    void advanceWrapsAroundTheFirstVertex() {
+        PerimeterRail rail = RECTANGLE.getRail();
+        PerimeterRail.Position position = rail.project(0f, 0f, new PerimeterRail.Position());
+        assertPosition(0, 0f, position);
+
+        // Up from vertex 0 runs backwards along the last edge.
+        rail.advance(position, 0f, 1f, 50f);
+        assertPosition(3, 250f / 300f, position);
+        assertPoint(0, 50, rail, position);
+
+        // Straight down stops at the corner, down and right turns it onto edge 0.
+        rail.advance(position, 0f, -1f, 100f);
+        assertPoint(0, 0, rail, position);
+        rail.advance(position, 0f, 1f, 50f);
+        rail.advance(position, DIAGONAL, -DIAGONAL, 100f);
+        assertEquals(0, position.getEdge());
+        assertPoint((100 - 50 / DIAGONAL) * DIAGONAL, 0, rail, position);
+    }
+
+    @Test
+    void advanceChoosesTheEdgeAtAVertexThatAgreesWithTheInput() {
+        PerimeterRail rail = L_SHAPE.getRail();
+        PerimeterRail.Position corner = rail.project(100f, 100f, new PerimeterRail.Position());
+        assertPosition(3, 0f, corner);
+
+        PerimeterRail.Position position = copy(rail, corner);
+        rail.advance(position, 0f, 1f, 50f);
+        assertPoint(100, 150, rail, position);
+
+        position = copy(rail, corner);
+        rail.advance(position, 1f, 0f, 50f);
+        assertPoint(150, 100, rail, position);
+
+        // Neither edge leads left or down from the inner corner.
+        position = copy(rail, corner);
+        rail.advance(position, -1f, 0f, 50f);
+        assertPoint(100, 100, rail, position);
+        rail.advance(position, 0f, -1f, 50f);
+        assertPoint(100, 100, rail, position);
+
+        // Input agreeing equally with both goes forwards.
+        position = copy(rail, corner);
+        rail.advance(position, DIAGONAL, DIAGONAL, 50f);
+        assertPoint(100, 100 + 50 * DIAGONAL, rail, position);
+    }
+
+    @Test
+    void advanceRunsAroundTheWholeRing() {
+        PerimeterRail rail = L_SHAPE.getRail();
+        PerimeterRail.Position position = rail.project(200f, 0f, new PerimeterRail.Position());
+        double start = rail.arcLength(position);
+
+        // Each input follows the next edge counter-clockwise: right, up, left, up, left, down, right.
+        float[][] moves = {{1, 0, 200}, {0, 1, 100}, {-1, 0, 300}, {0, 1, 200}, {-1, 0, 100}, {0, -1, 300}, {1, 0, 200}};
+        for (float[] move : moves) {
+            rail.advance(position, move[0], move[1], move[2]);
+        }
+        assertPoint(200, 0, rail, position);
+        assertEquals(start, rail.arcLength(position), 1e-3);
+    }
+
+    private static PerimeterRail.Position copy(PerimeterRail rail, PerimeterRail.Position position) {
+        return rail.locate(rail.arcLength(position), new PerimeterRail.Position());
+    }
+
+    private static void assertPosition(int edge, float t, PerimeterRail.Position position) {
+        assertEquals(edge, position.getEdge(), "edge");
+        assertEquals(t, position.getT(), 1e-5f, "t");
+    }
+
+    private static void assertPoint(float x, float y, PerimeterRail rail, PerimeterRail.Position position) {
+        Vector3f point = rail.getPoint(position, new Vector3f());
+        assertEquals(x, point.x, 1e-3f, "x");
+        assertEquals(y, point.y, 1e-3f, "y");
+    }
+
+    private static Perimeter perimeter(float... xy) {
+        List<Vector3f> vertices = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) {
+            vertices.add(new Vector3f(xy[i], xy[i + 1], 0f));
+        }
+        return new Perimeter(vertices);
+    }
+}
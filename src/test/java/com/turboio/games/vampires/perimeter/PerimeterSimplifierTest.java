@@ -0,0 +1,119 @@
+package com.turboio.games.vampires.perimeter;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Point;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerimeterSimplifierTest {
+
+    @Test
+    void mergeCollinearDropsRunsAcrossTheSeam() {
+        // Starts halfway along the bottom edge, so the run along it wraps around the ring's start.
+        float[] ring = {200, 0, 300, 0, 400, 0, 400, 150, 400, 300, 0, 300, 0, 0, 100, 0};
+
+        assertArrayEquals(new float[]{400, 0, 400, 300, 0, 300, 0, 0}, PerimeterSimplifier.mergeCollinear(ring));
+    }
+
+    @Test
+    void mergeCollinearDropsNearDuplicates() {
+        float[] ring = {0, 0, 0, 0, 400, 0, 400.0004f, 0.0003f, 400, 300, 200, 300.0005f, 0, 300, 0, 300};
+
+        float[] merged = PerimeterSimplifier.mergeCollinear(ring);
+        assertEquals(8, merged.length);
+        assertEquals(400 * 300, Math.abs(PolygonSplitter.signedArea(merged)), 0.5);
+    }
+
+    @Test
+    void mergeCollinearKeepsCorners() {
+        float[] ring = {0, 0, 400, 0, 400, 100, 100, 100, 100, 300, 0, 300};
+
+        assertArrayEquals(ring, PerimeterSimplifier.mergeCollinear(ring));
+    }
+
+    @Test
+    void zeroToleranceOnlyMergesCollinearVertices() {
+        float[] ring = {0, 0, 200, 0, 400, 0, 400, 300, 201, 299, 0, 300};
+
+        assertArrayEquals(new float[]{0, 0, 400, 0, 400, 300, 201, 299, 0, 300}, new PerimeterSimplifier(0f).simplify(ring));
+    }
+
+    @Test
+    void tooFewVerticesLeaveTheRingAsItIs() {
+        float[] ring = {0, 0, 100, 0, 200, 0, 100, 0.0001f};
+
+        assertSame(ring, new PerimeterSimplifier(0.5f).simplify(ring));
+        assertThrows(IllegalArgumentException.class, () -> new PerimeterSimplifier(-1f));
+    }
+
+    @Test
+    void simplifiedRingsStayValidAndCloseToTheOriginal() {
+        Random random = new Random(5);
+        for (int polygon = 0; polygon < 100; polygon++) {
+            float tolerance = 0.5f + random.nextFloat() * 4f;
+            float[] ring = jaggedRing(random, 50 + random.nextInt(500));
+            float[] simplified = new PerimeterSimplifier(tolerance).simplify(ring);
+
+            Perimeter original = new Perimeter(ring, ring.length / 2);
+            Perimeter result = new Perimeter(simplified, simplified.length / 2);
+            assertTrue(result.getJtsPolygon().isValid(), "Invalid ring for polygon " + polygon);
+            assertTrue(simplified.length < ring.length, "Nothing simplified for polygon " + polygon);
+            // Douglas-Peucker keeps every original vertex within the tolerance of the new boundary.
+            for (int i = 0; i < original.size(); i++) {
+                Point vertex = Perimeter.GEOMETRY_FACTORY.createPoint(new Coordinate(original.x(i), original.y(i)));
+                assertTrue(result.getJtsBoundary().distance(vertex) <= tolerance + 1e-3,
+                        "Vertex " + i + " moved too far for polygon " + polygon);
+            }
+        }
+    }
+
+    @Test
+    void narrowNotchesDoNotCollapseIntoSelfIntersections() {
+        // A field whose bottom has 1 px wide notches 100 px deep, narrower than the tolerance.
+        int notches = 40;
+        float[] ring = new float[(notches * 4 + 3) * 2];
+        int k = 0;
+        for (int i = 0; i < notches; i++) {
+            float x = i * 3f;
+            k = put(ring, k, x, 0f);
+            k = put(ring, k, x + 2f, 0f);
+            k = put(ring, k, x + 2f, 100f);
+            k = put(ring, k, x + 3f, 100f);
+        }
+        k = put(ring, k, notches * 3f, 0f);
+        k = put(ring, k, notches * 3f, 200f);
+        put(ring, k, 0f, 200f);
+
+        float[] simplified = new PerimeterSimplifier(2.5f).simplify(ring);
+        assertTrue(simplified.length < ring.length);
+        assertTrue(new Perimeter(simplified, simplified.length / 2).getJtsPolygon().isValid());
+    }
+
+    private static int put(float[] ring, int k, float x, float y) {
+        ring[k] = x;
+        ring[k + 1] = y;
+        return k + 2;
+    }
+
+    /**
+     * A star-shaped ring with small noise on its radius, like the staircases drawn by the player.
+     */
+    private static float[] jaggedRing(Random random, int count) {
+        float[] ring = new float[count * 2];
+        float base = 150f + random.nextFloat() * 250f;
+        for (int i = 0; i < count; i++) {
+            double angle = i * Math.PI * 2 / count;
+            double radius = base + 40 * Math.sin(angle * 3) + random.nextFloat() * 2f;
+            ring[2 * i] = (float) (600 + radius * Math.cos(angle));
+            ring[2 * i + 1] = (float) (450 + radius * Math.sin(angle));
+        }
+        return ring;
+    }
+}
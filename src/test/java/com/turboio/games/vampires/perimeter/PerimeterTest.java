@@ -0,0 +1,97 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerimeterTest {
+
+    @Test
+    void containsMatchesPath2DOnRandomPolygons() {
+        Random random = new Random(42);
+        for (int polygon = 0; polygon < 200; polygon++) {
+            List<Vector3f> vertices = polygon % 2 == 0
+                    ? randomStarPolygon(random, 3 + random.nextInt(400))
+                    : randomRectilinearPolygon(random, 2 + random.nextInt(60));
+            Perimeter perimeter = new Perimeter(vertices);
+            Path2D.Float path = toPath(perimeter);
+
+            for (int i = 0; i < 500; i++) {
+                float x = random.nextFloat() * 1400f - 100f;
+                float y = random.nextFloat() * 1100f - 100f;
+                assertEquals(path.contains(x, y), perimeter.contains(new Vector3f(x, y, 0f)),
+                        "Mismatch for polygon " + polygon + " at (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    @Test
+    void containsIncludesBoundary() {
+        Perimeter perimeter = new Perimeter(List.of(
+                new Vector3f(48, 48, 0), new Vector3f(1152, 48, 0),
+                new Vector3f(1152, 800, 0), new Vector3f(48, 800, 0)));
+
+        assertTrue(perimeter.contains(new Vector3f(48, 48, 0)));
+        assertTrue(perimeter.contains(new Vector3f(600, 48, 0)));
+        assertTrue(perimeter.contains(new Vector3f(1152, 400, 0)));
+        assertTrue(perimeter.contains(new Vector3f(600, 800, 0)));
+        assertFalse(perimeter.contains(new Vector3f(600, 801, 0)));
+        assertFalse(perimeter.contains(new Vector3f(47, 400, 0)));
+        assertFalse(perimeter.contains(null));
+    }
+
+    private static List<Vector3f> randomStarPolygon(Random random, int count) {
+        double[] angles = new double[count];
+        for (int i = 0; i < count; i++) {
+            angles[i] = random.nextDouble() * Math.PI * 2;
+        }
+        Arrays.sort(angles);
+        List<Vector3f> vertices = new ArrayList<>();
+        for (double angle : angles) {
+            double radius = 50 + random.nextDouble() * 400;
+            vertices.add(new Vector3f((float) (600 + radius * Math.cos(angle)), (float) (450 + radius * Math.sin(angle)), 0f));
+        }
+        return vertices;
+    }
+
+    /**
+     * A staircase-shaped polygon like the ones produced by axis-aligned captures.
+     */
+    private static List<Vector3f> randomRectilinearPolygon(Random random, int steps) {
+        float[] xs = new float[steps + 1];
+        float[] ys = new float[steps + 1];
+        xs[0] = 100f;
+        ys[0] = 800f;
+        for (int i = 1; i <= steps; i++) {
+            xs[i] = xs[i - 1] + 1f + random.nextInt(1000 / steps + 1);
+            ys[i] = ys[i - 1] - 1f - random.nextInt(700 / steps + 1);
+        }
+        List<Vector3f> vertices = new ArrayList<>();
+        vertices.add(new Vector3f(xs[0], ys[steps], 0f));
+        for (int i = steps; i >= 1; i--) {
+            vertices.add(new Vector3f(xs[steps - i + 1], ys[i], 0f));
+            vertices.add(new Vector3f(xs[steps - i + 1], ys[i - 1], 0f));
+        }
+        vertices.add(new Vector3f(xs[0], ys[0], 0f));
+        return vertices;
+    }
+
+    private static Path2D.Float toPath(Perimeter perimeter) {
+        Path2D.Float path = new Path2D.Float();
+        path.moveTo(perimeter.x(0), perimeter.y(0));
+        for (int i = 1; i < perimeter.size(); i++) {
+            path.lineTo(perimeter.x(i), perimeter.y(i));
+        }
+        path.closePath();
+        return path;
+    }
+}
@@ -0,0 +1,157 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PolygonSplitterTest {
+
+    @Test
+    void capturedAreaMatchesFullComputation() {
+        Random random = new Random(7);
+        for (int polygon = 0; polygon < 300; polygon++) {
+            Perimeter perimeter = randomConvexPerimeter(random, 3 + random.nextInt(300));
+            List<Vector3f> path = randomChordPath(random, perimeter);
+
+            PolygonSplitter.Split split = PolygonSplitter.split(perimeter, path, 0.1f);
+            assertNotNull(split, "No split for polygon " + polygon);
+
+            for (float[] kept : new float[][]{split.getFirst(), split.getSecond()}) {
+                float[] captured = kept == split.getFirst() ? split.getSecond() : split.getFirst();
+                double expected = perimeter.getArea() - Math.abs(PolygonSplitter.signedArea(kept));
+                assertEquals(expected, split.getCapturedArea(kept), 1e-6 * perimeter.getArea(),
+                        "Captured area mismatch for polygon " + polygon);
+                assertEquals(Math.abs(PolygonSplitter.signedArea(captured)), split.getCapturedArea(kept),
+                        1e-6 * perimeter.getArea(), "Captured ring area mismatch for polygon " + polygon);
+            }
+        }
+    }
+
+    @Test
+    void managerReportsCapturedArea() {
+        PerimeterManager manager = new PerimeterManager();
+        manager.setSimplificationTolerance(0f);
+        Random random = new Random(11);
+        for (int polygon = 0; polygon < 100; polygon++) {
+            Perimeter perimeter = randomConvexPerimeter(random, 3 + random.nextInt(200));
+            List<Vector3f> path = randomChordPath(random, perimeter);
+            Vector3f enemy = new Vector3f(600f, 500f, 0f);
+
+            CaptureResult capture = manager.calculateCapture(perimeter, path, enemy);
+            double expected = perimeter.getArea() - capture.getPerimeter().getArea();
+            assertEquals(expected, capture.getCapturedArea(), 1e-4 * perimeter.getArea(),
+                    "Captured area mismatch for polygon " + polygon);
+        }
+    }
+
+    @Test
+    void selfCrossingPathFallsBackToOverlay() {
+        Perimeter perimeter = rectangle();
+        List<Vector3f> path = path(48f, 48f, 113.99f, 113.99f, 207.33f, 113.99f, 141.33f, 179.99f,
+                141.33f, 86.66f, 48f, 86.66f);
+
+        assertNull(PolygonSplitter.split(perimeter, path, 0.1f));
+        assertValidCapture(perimeter, path);
+    }
+
+    @Test
+    void pathGrazingTheBoundaryFallsBackToOverlay() {
+        Perimeter perimeter = rectangle();
+        // Touches the top edge at a single vertex, then runs along it.
+        List<Vector3f> touching = path(48f, 300f, 300f, 300f, 400f, 48f, 500f, 300f, 48f, 400f);
+        List<Vector3f> running = path(48f, 300f, 300f, 300f, 300f, 48f, 500f, 48f, 500f, 300f, 48f, 400f);
+
+        for (List<Vector3f> path : List.of(touching, running)) {
+            assertNull(PolygonSplitter.split(perimeter, path, 0.1f));
+            assertValidCapture(perimeter, path);
+        }
+    }
+
+    @Test
+    void pathStartingAtACornerSplits() {
+        Perimeter perimeter = rectangle();
+        List<Vector3f> path = path(48f, 48f, 300f, 300f, 48f, 400f);
+
+        PolygonSplitter.Split split = PolygonSplitter.split(perimeter, path, 0.1f);
+        assertNotNull(split);
+        assertEquals(252.0 * 352.0 / 2.0, Math.min(split.getFirstArea(), split.getSecondArea()), 1.0);
+    }
+
+    private static void assertValidCapture(Perimeter perimeter, List<Vector3f> path) {
+        PerimeterManager manager = new PerimeterManager();
+        CaptureResult capture = manager.calculateCapture(perimeter, path, new Vector3f(1000f, 800f, 0f));
+        assertTrue(capture.getPerimeter().getJtsPolygon().isValid());
+        // The boundary is noded cleanly, so hit tests against it keep working.
+        manager.getIntersection(Perimeter.GEOMETRY_FACTORY.createLineString(new Coordinate[]{
+                new Coordinate(20, 20), new Coordinate(900, 700)}),
+                capture.getPerimeter());
+    }
+
+    private static Perimeter rectangle() {
+        return new Perimeter(path(48f, 48f, 1152f, 48f, 1152f, 852f, 48f, 852f));
+    }
+
+    private static List<Vector3f> path(float... xy) {
+        List<Vector3f> points = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) {
+            points.add(new Vector3f(xy[i], xy[i + 1], 0f));
+        }
+        return points;
+    }
+
+    /**
+     * Convex polygon containing (600, 500), so any path through its interior splits it cleanly.
+     */
+    private static Perimeter randomConvexPerimeter(Random random, int vertices) {
+        double[] angles = new double[vertices];
+        for (int i = 0; i < vertices; i++) {
+            angles[i] = (i + random.nextDouble() * 0.8) * Math.PI * 2 / vertices;
+        }
+        float radius = 200f + random.nextFloat() * 300f;
+        List<Vector3f> points = new ArrayList<>();
+        for (double angle : angles) {
+            points.add(new Vector3f(600f + radius * (float) Math.cos(angle), 500f + radius * (float) Math.sin(angle), 0f));
+        }
+        return new Perimeter(points);
+    }
+
+    /**
+     * A path from one edge to another, bent towards the centre so it has interior vertices.
+     */
+    private static List<Vector3f> randomChordPath(Random random, Perimeter perimeter) {
+        int n = perimeter.size();
+        int entryEdge = random.nextInt(n);
+        int exitEdge = (entryEdge + 1 + random.nextInt(n - 1)) % n;
+        Vector3f entry = pointOnEdge(perimeter, entryEdge, 0.25f + random.nextFloat() * 0.5f);
+        Vector3f exit = pointOnEdge(perimeter, exitEdge, 0.25f + random.nextFloat() * 0.5f);
+        Vector3f centre = new Vector3f(600f, 500f, 0f);
+        float bend = random.nextFloat() * 0.5f;
+
+        List<Vector3f> path = new ArrayList<>();
+        path.add(entry);
+        int inner = random.nextInt(4);
+        for (int i = 1; i <= inner; i++) {
+            Vector3f onChord = entry.clone().interpolateLocal(exit, (float) i / (inner + 1));
+            path.add(onChord.interpolateLocal(centre, bend));
+        }
+        path.add(exit);
+        return path;
+    }
+
+    private static Vector3f pointOnEdge(Perimeter perimeter, int edge, float t) {
+        int next = (edge + 1) % perimeter.size();
+        return new Vector3f(
+                perimeter.x(edge) + (perimeter.x(next) - perimeter.x(edge)) * t,
+                perimeter.y(edge) + (perimeter.y(next) - perimeter.y(edge)) * t,
+                0f);
+    }
+}
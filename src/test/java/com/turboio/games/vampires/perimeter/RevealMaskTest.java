@@ -0,0 +1,118 @@
+package com.turboio.games.vampires.perimeter;
+
+import com.jme3.math.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RevealMaskTest {
+
+    @Test
+    void fillsPixelCentresInsideRing() {
+        RevealMask mask = new RevealMask(100, 80);
+        mask.fill(new float[][]{{10, 20, 40, 20, 40, 50, 10, 50}}, 255);
+
+        assertEquals(30 * 30, count(mask, 255));
+        assertEquals(255, mask.get(10, 20));
+        assertEquals(0, mask.get(40, 20));
+        assertEquals(0, mask.get(9, 30));
+        assertTrue(mask.hasDirtyRegion());
+        assertEquals(10, mask.getDirtyMinX());
+        assertEquals(20, mask.getDirtyMinY());
+        assertEquals(39, mask.getDirtyMaxX());
+        assertEquals(49, mask.getDirtyMaxY());
+    }
+
+    @Test
+    void nestedRingCutsAHole() {
+        RevealMask mask = new RevealMask(100, 100);
+        mask.fill(new float[][]{{0, 0, 100, 0, 100, 100, 0, 100}, {20, 20, 80, 20, 80, 80, 20, 80}}, 255);
+        assertEquals(100 * 100 - 60 * 60, count(mask, 255));
+        assertEquals(0, mask.get(50, 50));
+    }
+
+    @Test
+    void clipsToMask() {
+        RevealMask mask = new RevealMask(50, 50);
+        mask.fill(new float[][]{{-100, -100, 200, -100, 200, 200, -100, 200}}, 255);
+        assertEquals(50 * 50, count(mask, 255));
+        assertEquals(0, mask.getDirtyMinX());
+        assertEquals(49, mask.getDirtyMaxY());
+    }
+
+    @Test
+    void captureClearsOnlyTheCapturedRegion() {
+        Perimeter perimeter = new Perimeter(new float[]{64, 64, 1216, 64, 1216, 606, 64, 606}, 4);
+        RevealMask mask = new RevealMask(1280, 720);
+        mask.fill(new float[][]{perimeter.copyCoordinates()}, 255);
+        mask.clearDirtyRegion();
+
+        PerimeterManager manager = new PerimeterManager();
+        List<Vector3f> path = List.of(new Vector3f(300, 64, 0), new Vector3f(300, 200, 0), new Vector3f(64, 200, 0));
+        CaptureResult capture = manager.calculateCapture(perimeter, path, new Vector3f(600, 400, 0));
+        mask.fill(capture.getCapturedRegion(), 0);
+
+        assertEquals(capture.getCapturedArea(), perimeter.getArea() - count(mask, 255), 1e-6);
+        assertEquals(capture.getPerimeter().getArea(), count(mask, 255), 1e-6);
+        assertEquals(64, mask.getDirtyMinX());
+        assertEquals(64, mask.getDirtyMinY());
+        assertEquals(299, mask.getDirtyMaxX());
+        assertEquals(199, mask.getDirtyMaxY());
+    }
+
+    @Test
+    void gridCaptureClearsTheCapturedCells() {
+        // On cell boundaries, so the mask and the grid start out covering the same pixels.
+        Perimeter perimeter = new Perimeter(new float[]{48, 48, 1152, 48, 1152, 800, 48, 800}, 4);
+        GridTerritory grid = new GridTerritory(perimeter, 1200, 900, 4f);
+        RevealMask mask = new RevealMask(1200, 900);
+        mask.fill(new float[][]{perimeter.copyCoordinates()}, 255);
+        mask.clearDirtyRegion();
+
+        grid.capture(List.of(new Vector3f(300, 48, 0), new Vector3f(300, 200, 0), new Vector3f(48, 200, 0)),
+                new Vector3f(600, 400, 0));
+        mask.fillCapturedCells(grid, 0);
+
+        assertEquals(grid.getOpenArea(), count(mask, 255), 1e-6);
+        assertFalse(grid.hasDirtyRegion());
+        assertEquals(48, mask.getDirtyMinX());
+        assertEquals(48, mask.getDirtyMinY());
+        assertEquals(303, mask.getDirtyMaxX());
+        assertEquals(203, mask.getDirtyMaxY());
+        assertEquals(255, mask.get(304, 100));
+        assertEquals(0, mask.get(303, 100));
+    }
+
+    @Test
+    void copiesDirtyRegionRowByRow() {
+        RevealMask mask = new RevealMask(8, 8);
+        mask.fill(new float[][]{{2, 3, 5, 3, 5, 5, 2, 5}}, 7);
+
+        ByteBuffer store = ByteBuffer.allocate(64);
+        mask.copyDirtyRegion(store);
+        assertEquals(3 * 2, store.remaining());
+        while (store.hasRemaining()) {
+            assertEquals(7, store.get());
+        }
+
+        mask.clearDirtyRegion();
+        assertFalse(mask.hasDirtyRegion());
+    }
+
+    private static int count(RevealMask mask, int value) {
+        int count = 0;
+        for (int y = 0; y < mask.getHeight(); y++) {
+            for (int x = 0; x < mask.getWidth(); x++) {
+                if (mask.get(x, y) == value) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,196 @@
+package com.turboio.games.vampires.replay;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.level.LevelLoader;
+import com.turboio.games.vampires.perimeter.CaptureResult;
+import com.turboio.games.vampires.perimeter.CaptureSpeculator;
+import com.turboio.games.vampires.perimeter.Perimeter;
+import com.turboio.games.vampires.perimeter.PerimeterManager;
+import com.turboio.games.vampires.perimeter.PerimeterRenderer;
+import com.turboio.games.vampires.sim.CaptureSolver;
+import com.turboio.games.vampires.sim.LevelInput;
+import com.turboio.games.vampires.sim.LevelSimulation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayPlayerTest {
+
+    private static final String LEVEL = "storylines/foo/levels/level1.json";
+    private static final float RATE = 120f;
+
+    /**
+     * Completes captures a few steps after they were asked for, like the view's worker does.
+     */
+    private static class DelayedSolver implements CaptureSolver {
+        private final LevelSimulation simulation;
+        private CompletableFuture<CaptureResult> pending;
+        private CaptureResult result;
+        private int stepsWaited;
+
+        DelayedSolver(LevelSimulation simulation) {
+            this.simulation = simulation;
+        }
+
+        @Override
+        public CompletableFuture<CaptureResult> solve(Perimeter perimeter, List<Vector3f> path, Vector3f enemyPosition) {
+            result = simulation.getPerimeterManager().calculateCapture(perimeter, path, enemyPosition);
+            pending = new CompletableFuture<>();
+            stepsWaited = 0;
+            return pending;
+        }
+
+        void tick() {
+            if (pending != null && ++stepsWaited > 4) {
+                pending.complete(result);
+                pending = null;
+            }
+        }
+    }
+
+    @Test
+    void traceRoundTripsThroughItsBinaryForm() throws IOException {
+        InputTrace trace = new InputTrace(LEVEL, -5L, 1200, 900, RATE, 32f, new float[]{24f, 30f});
+        Random random = new Random(5);
+        List<Integer> masks = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int mask = random.nextInt(8) == 0 ? random.nextInt(32) : (masks.isEmpty() ? 0 : masks.get(i - 1));
+            masks.add(mask);
+            trace.append(mask);
+        }
+        trace.setResult(LevelSimulation.Outcome.LOSE, 1234.5);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace.write(bytes);
+        InputTrace read = InputTrace.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(LEVEL, read.getLevelId());
+        assertEquals(-5L, read.getSeed());
+        assertEquals(1200f, read.getWidth());
+        assertEquals(RATE, read.getStepsPerSecond());
+        assertArrayEquals(new float[]{24f, 30f}, read.getEnemyRadii());
+        assertEquals(LevelSimulation.Outcome.LOSE, read.getOutcome());
+        assertEquals(1234.5, read.getScore());
+        assertEquals(trace.getRunCount(), read.getRunCount());
+        assertEquals(masks.size(), read.getTickCount());
+        for (int i = 0; i < masks.size(); i++) {
+            assertEquals(masks.get(i), read.getMask(i), "Tick " + i);
+        }
+        // Runs average eight ticks here, so each costs a couple of bytes instead of eight.
+        assertTrue(bytes.size() < 100 + 3 * trace.getRunCount());
+    }
+
+    @Test
+    void headlessReplayMatchesARunWithSlowCaptures() throws IOException {
+        LevelSimulation recorded = new LevelSimulation(LevelLoader.load(LEVEL), 1200, 900, 2L);
+        DelayedSolver solver = new DelayedSolver(recorded);
+        recorded.setCaptureSolver(solver);
+        int[] captures = new int[1];
+        recorded.setListener(new LevelSimulation.Listener() {
+            @Override
+            public void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+                captures[0]++;
+            }
+        });
+
+        InputTrace trace = record(recorded, 8000, solver::tick, () -> {
+        });
+        // A long run with dozens of captures that ends with the player caught.
+        assertTrue(captures[0] > 20);
+        assertEquals(LevelSimulation.Outcome.LOSE, recorded.getOutcome());
+        assertReplays(trace, recorded);
+    }
+
+    @Test
+    void headlessReplayMatchesARunWithSpeculatedCaptures() throws IOException {
+        LevelSimulation recorded = new LevelSimulation(LevelLoader.load(LEVEL), 1200, 900, 2L);
+        PerimeterManager manager = recorded.getPerimeterManager();
+        CaptureSpeculator speculator = new CaptureSpeculator(Runnable::run, manager, new PerimeterRenderer(null, 1200, 900));
+        int[] speculated = new int[1];
+        recorded.setCaptureSolver((perimeter, path, enemyPosition) -> {
+            CaptureResult result = speculator.take(perimeter, path, enemyPosition);
+            if (result != null) {
+                speculated[0]++;
+                return CompletableFuture.completedFuture(result);
+            }
+            return CompletableFuture.completedFuture(manager.calculateCapture(perimeter, path, enemyPosition));
+        });
+
+        // Speculates after every step the way the view does.
+        InputTrace trace = record(recorded, 8000, () -> {
+        }, () -> {
+            if (recorded.isPathOpen()) {
+                speculator.speculate(recorded.getPerimeter(), recorded.getPlayer().getDrawingPath(),
+                        recorded.getPlayer().getHeading());
+            }
+        });
+        // Only moves straight into a straight wall hit the predicted point exactly.
+        assertTrue(speculated[0] > 0);
+        assertReplays(trace, recorded);
+    }
+
+    @Test
+    void abandonedRunReplaysToTheScoreItWasLeftWith() throws IOException {
+        LevelSimulation recorded = new LevelSimulation(LevelLoader.load(LEVEL), 1200, 900, 2L);
+        DelayedSolver solver = new DelayedSolver(recorded);
+        recorded.setCaptureSolver(solver);
+
+        InputTrace trace = record(recorded, 3000, solver::tick, () -> {
+        });
+        assertNull(trace.getOutcome());
+        assertTrue(trace.getScore() > 0);
+        assertReplays(trace, recorded);
+    }
+
+    /**
+     * Plays the scripted input for at most the given number of steps, or until the player is
+     * caught, recording each tick. The trace gets the result the run had when it stopped.
+     */
+    private static InputTrace record(LevelSimulation recorded, int steps, Runnable beforeStep, Runnable afterStep) {
+        InputTrace trace = InputTrace.of(LEVEL, recorded, 1200, 900, RATE);
+        LevelInput input = new LevelInput();
+        Random random = new Random(7);
+        for (int step = 0; step < steps && recorded.getOutcome() == null; step++) {
+            if (step % 40 == 0) {
+                input.up = random.nextBoolean();
+                input.down = !input.up && random.nextInt(3) == 0;
+                input.left = random.nextBoolean();
+                input.right = !input.left && random.nextInt(3) == 0;
+                input.toggleDrawing = random.nextInt(3) == 0;
+            }
+            beforeStep.run();
+            int mask = InputTrace.mask(input);
+            int tick = recorded.getTick();
+            recorded.step(1f / RATE, input);
+            if (recorded.getTick() != tick) {
+                trace.append(mask);
+            }
+            afterStep.run();
+        }
+        trace.setResult(recorded.getOutcome(), recorded.getScore());
+        return trace;
+    }
+
+    private static void assertReplays(InputTrace trace, LevelSimulation recorded) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace.write(bytes);
+        LevelSimulation replayed = ReplayPlayer.run(InputTrace.read(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertTrue(ReplayPlayer.matches(trace, replayed));
+        assertEquals(recorded.getTick(), replayed.getTick());
+        assertEquals(recorded.getPlayer().getPosition(), replayed.getPlayer().getPosition());
+        assertEquals(recorded.getEnemies().get(0).getPosition(), replayed.getEnemies().get(0).getPosition());
+        assertEquals(recorded.getPerimeter().getArea(), replayed.getPerimeter().getArea());
+    }
+}
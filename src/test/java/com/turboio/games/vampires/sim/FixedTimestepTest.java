@@ -0,0 +1,31 @@
+package com.turboio.games.vampires.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FixedTimestepTest {
+
+    @Test
+    void stepCountDoesNotDependOnFrameRate() {
+        for (float fps : new float[]{24f, 60f, 144f, 1000f}) {
+            FixedTimestep timestep = new FixedTimestep(120f, 8);
+            int steps = 0;
+            for (int frame = 0; frame < fps * 10; frame++) {
+                steps += timestep.advance(1f / fps);
+                float alpha = timestep.getAlpha();
+                assertTrue(alpha >= 0f && alpha < 1f, "alpha " + alpha);
+            }
+            assertEquals(1200, steps, 1, "steps at " + fps + " FPS");
+        }
+    }
+
+    @Test
+    void spikeRunsAtMostTheCatchUpLimit() {
+        FixedTimestep timestep = new FixedTimestep(120f, 8);
+        assertEquals(8, timestep.advance(1f));
+        // The rest of the spike is dropped rather than replayed over the next frames.
+        assertEquals(2, timestep.advance(1f / 60f));
+    }
+}
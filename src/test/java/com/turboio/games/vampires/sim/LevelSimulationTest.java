@@ -0,0 +1,271 @@
+package com.turboio.games.vampires.sim;
+
+import com.jme3.math.Vector3f;
+import com.turboio.games.vampires.level.EnemyConfig;
+import com.turboio.games.vampires.level.LevelConfig;
+import com.turboio.games.vampires.level.Vector2;
+import com.turboio.games.vampires.perimeter.CaptureResult;
+import com.turboio.games.vampires.perimeter.CaptureSpeculator;
+import com.turboio.games.vampires.perimeter.Perimeter;
+import com.turboio.games.vampires.perimeter.PerimeterRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LevelSimulationTest {
+
+    private static final float DT = 1f / 60f;
+
+    /**
+     * Keeps the enemy where it spawned.
+     */
+    public static class StandStill implements EnemyMovement {
+        public StandStill(SplittableRandom random) {
+        }
+
+        @Override
+        public void step(Enemy enemy, Perimeter perimeter, float dt) {
+        }
+    }
+
+    @Test
+    void drawingACornerCapturesIt() {
+        LevelSimulation simulation = new LevelSimulation(level(900, 400), 1280, 720);
+        List<String> events = new ArrayList<>();
+        simulation.setListener(new LevelSimulation.Listener() {
+            @Override
+            public void onDrawingStarted() {
+                events.add("started");
+            }
+
+            @Override
+            public void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+                events.add("captured " + changed);
+            }
+
+            @Override
+            public void onDrawingEnded() {
+                events.add("ended");
+            }
+        });
+
+        LevelInput input = new LevelInput();
+        input.right = true;
+        run(simulation, input, 60);
+        input.right = false;
+        input.toggleDrawing = true;
+        input.up = true;
+        run(simulation, input, 60);
+        assertTrue(simulation.getPlayer().isDrawing());
+        input.up = false;
+        input.left = true;
+        run(simulation, input, 120);
+
+        assertEquals(List.of("started", "captured true", "ended"), events);
+        assertNull(simulation.getOutcome());
+        assertFalse(simulation.getPlayer().isDrawing());
+        // A 280 x 280 corner of the 1152 x 542 field.
+        assertEquals(100.0 * 280 * 280 / (1152 * 542), simulation.getCapturedPercentage(), 0.5);
+        assertTrue(simulation.getScore() > 0);
+        assertEquals(64f, simulation.getPlayer().getPosition().x, 1e-3f);
+    }
+
+    @Test
+    void wallHitIsSolvedFromTheSpeculation() {
+        LevelSimulation simulation = new LevelSimulation(level(900, 400), 1280, 720);
+        CaptureSpeculator speculator = new CaptureSpeculator(Runnable::run, simulation.getPerimeterManager(),
+                new PerimeterRenderer(null, 1280, 720));
+        int[] solved = new int[2];
+        simulation.setCaptureSolver((perimeter, path, enemyPosition) -> {
+            CaptureResult speculated = speculator.take(perimeter, path, enemyPosition);
+            solved[speculated != null ? 0 : 1]++;
+            return CompletableFuture.completedFuture(speculated != null ? speculated
+                    : simulation.getPerimeterManager().calculateCapture(perimeter, path, enemyPosition));
+        });
+
+        // Steps the way the view does, speculating after every step while the path is open.
+        LevelInput input = new LevelInput();
+        input.right = true;
+        for (int i = 0; i < 240; i++) {
+            if (i == 60) {
+                input.right = false;
+                input.toggleDrawing = true;
+                input.up = true;
+            } else if (i == 120) {
+                input.up = false;
+                input.left = true;
+            }
+            simulation.step(DT, input);
+            if (simulation.isPathOpen()) {
+                speculator.speculate(simulation.getPerimeter(), simulation.getPlayer().getDrawingPath(),
+                        simulation.getPlayer().getHeading());
+            }
+        }
+
+        assertArrayEquals(new int[]{1, 0}, solved);
+        assertFalse(simulation.getPlayer().isDrawing());
+        assertEquals(100.0 * 280 * 280 / (1152 * 542), simulation.getCapturedPercentage(), 0.5);
+    }
+
+    @Test
+    void drawPressedWhileACaptureIsPendingIsKept() {
+        LevelSimulation simulation = new LevelSimulation(level(900, 400), 1280, 720);
+        CompletableFuture<CaptureResult> capture = new CompletableFuture<>();
+        simulation.setCaptureSolver((perimeter, path, enemyPosition) -> capture.thenApply(ignored ->
+                simulation.getPerimeterManager().calculateCapture(perimeter, path, enemyPosition)));
+        List<String> events = new ArrayList<>();
+        simulation.setListener(new LevelSimulation.Listener() {
+            @Override
+            public void onDrawingStarted() {
+                events.add("started");
+            }
+
+            @Override
+            public void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+                events.add("captured");
+            }
+        });
+
+        LevelInput input = new LevelInput();
+        input.right = true;
+        run(simulation, input, 60);
+        input.right = false;
+        input.toggleDrawing = true;
+        input.up = true;
+        run(simulation, input, 60);
+        input.up = false;
+        input.left = true;
+        run(simulation, input, 120);
+        assertTrue(simulation.isCapturePending());
+        int tick = simulation.getTick();
+
+        // Pressed while waiting: the steps that wait keep it for the one that advances.
+        input.toggleDrawing = true;
+        run(simulation, input, 5);
+        assertTrue(input.toggleDrawing);
+        assertEquals(tick, simulation.getTick());
+
+        capture.complete(null);
+        simulation.step(DT, input);
+        assertFalse(input.toggleDrawing);
+        assertEquals(tick + 1, simulation.getTick());
+        assertEquals(List.of("started", "captured", "started"), events);
+        assertTrue(simulation.getPlayer().isDrawing());
+    }
+
+    @Test
+    void enemyOnThePathKillsThePlayer() {
+        LevelSimulation simulation = new LevelSimulation(level(344, 250), 1280, 720);
+        LevelInput input = new LevelInput();
+        input.right = true;
+        run(simulation, input, 60);
+        input.right = false;
+        input.toggleDrawing = true;
+        input.up = true;
+        run(simulation, input, 60);
+
+        assertEquals(LevelSimulation.Outcome.LOSE, simulation.getOutcome());
+        assertFalse(simulation.getPlayer().isAlive());
+    }
+
+    @Test
+    void sameSeedPlaysOutTheSame() {
+        List<Vector3f> first = trajectories(7L);
+        assertEquals(first, trajectories(7L));
+        assertNotEquals(first, trajectories(8L));
+    }
+
+    @Test
+    void sameSeedAndInputCaptureTheSame() {
+        int[] overlayCaptures = new int[1];
+        List<String> first = captures(3L, overlayCaptures);
+        assertEquals(first, captures(3L, overlayCaptures));
+        // Some of the captures went through the general overlay, whose rings start anywhere.
+        assertTrue(overlayCaptures[0] > 0);
+    }
+
+    /**
+     * Every perimeter committed over a minute of random input against a bouncing enemy.
+     */
+    private static List<String> captures(long seed, int[] overlayCaptures) {
+        LevelConfig config = level(600, 300);
+        config.getEnemies().get(0).setMovementClass(BouncingMovement.class.getName());
+        LevelSimulation simulation = new LevelSimulation(config, 1280, 720, seed);
+        List<String> perimeters = new ArrayList<>();
+        simulation.setListener(new LevelSimulation.Listener() {
+            @Override
+            public void onCaptureCommitted(CaptureResult result, List<Vector3f> path, boolean changed) {
+                perimeters.add(result.getPerimeter().toString());
+                if (changed && result.getCapturedRegion().length > 1) {
+                    overlayCaptures[0]++;
+                }
+            }
+        });
+
+        LevelInput input = new LevelInput();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int step = 0; step < 3600 && simulation.getOutcome() == null; step++) {
+            if (step % 20 == 0) {
+                input.up = random.nextBoolean();
+                input.down = !input.up && random.nextInt(3) == 0;
+                input.left = random.nextBoolean();
+                input.right = !input.left && random.nextInt(3) == 0;
+                input.toggleDrawing = random.nextInt(3) == 0;
+            }
+            simulation.step(DT, input);
+        }
+        perimeters.add(simulation.getOutcome() + " " + simulation.getScore());
+        return perimeters;
+    }
+
+    /**
+     * Positions of a wandering and a bouncing enemy over ten seconds of an idle player.
+     */
+    private static List<Vector3f> trajectories(long seed) {
+        LevelConfig config = level(600, 300);
+        EnemyConfig wandering = config.getEnemies().get(0);
+        wandering.setMovementClass(WanderingMovement.class.getName());
+        EnemyConfig bouncing = new EnemyConfig();
+        bouncing.setSpawnX(900);
+        bouncing.setSpawnY(400);
+        bouncing.setMovementClass(BouncingMovement.class.getName());
+        config.setEnemies(List.of(wandering, bouncing));
+
+        LevelSimulation simulation = new LevelSimulation(config, 1280, 720, seed);
+        LevelInput input = new LevelInput();
+        List<Vector3f> positions = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            simulation.step(DT, input);
+            simulation.getEnemies().forEach(enemy -> positions.add(enemy.getPosition().clone()));
+        }
+        return positions;
+    }
+
+    private static void run(LevelSimulation simulation, LevelInput input, int steps) {
+        for (int i = 0; i < steps; i++) {
+            simulation.step(DT, input);
+        }
+    }
+
+    private static LevelConfig level(float enemyX, float enemyY) {
+        LevelConfig config = new LevelConfig();
+        config.setPerimeterVertices(List.of(new Vector2(64, 64), new Vector2(1216, 64), new Vector2(1216, 606), new Vector2(64, 606)));
+        EnemyConfig enemy = new EnemyConfig();
+        enemy.setSpawnX(enemyX);
+        enemy.setSpawnY(enemyY);
+        enemy.setRadius(24);
+        enemy.setMovementClass(StandStill.class.getName());
+        config.setEnemies(List.of(enemy));
+        return config;
+    }
+}
@@ -0,0 +1,43 @@
+package com.turboio.games.vampires.sprites;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.system.JmeSystem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SpriteAtlasTest {
+
+    private static final String VICTOR = "Textures/sprites/victor";
+
+    @Test
+    void bakedAtlasMatchesRuntimePacking() throws Exception {
+        AssetManager assetManager = JmeSystem.newAssetManager(
+                getClass().getClassLoader().getResource("com/jme3/asset/Desktop.cfg"));
+        SpriteAtlas packed = SpriteAtlas.pack(assetManager, VICTOR, SpriteAtlas.loadConfig(assetManager, VICTOR));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        packed.write(out);
+        SpriteAtlas baked = SpriteAtlas.read(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(packed.getImage().getFormat(), baked.getImage().getFormat());
+        assertEquals(packed.getImage().getWidth(), baked.getImage().getWidth());
+        assertEquals(packed.getImage().getHeight(), baked.getImage().getHeight());
+        assertEquals(packed.getImage().getData(0), baked.getImage().getData(0));
+        for (String animation : new String[]{"up", "down", "side"}) {
+            assertArrayEquals(packed.getFrames(animation, false), baked.getFrames(animation, false));
+            assertArrayEquals(packed.getFrames(animation, true), baked.getFrames(animation, true));
+        }
+        assertEquals(2, baked.getFrameCount("side"));
+
+        // Mirrored frames swap the U range of the side frames.
+        float[] side = baked.getFrames("side", false);
+        float[] mirrored = baked.getFrames("side", true);
+        assertEquals(side[0], mirrored[2]);
+        assertEquals(side[2], mirrored[0]);
+    }
+}
@@ -0,0 +1,44 @@
+package com.turboio.games.vampires.sprites;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SpriteBatchTest {
+
+    @Test
+    void quadsFollowInstances() {
+        SpriteBatch batch = new SpriteBatch("human", null, 20, 10);
+        List<Vector3f> instances = new ArrayList<>();
+        // Enough instances to grow the buffers a few times.
+        for (int i = 0; i < 100; i++) {
+            Vector3f instance = new Vector3f(i, 2 * i, 0);
+            batch.add(instance);
+            instances.add(instance);
+        }
+        instances.get(57).set(300, 200, 0);
+        batch.update();
+
+        Mesh mesh = batch.getGeometry().getMesh();
+        assertEquals(200, mesh.getTriangleCount());
+        assertEquals(400, mesh.getVertexCount());
+        FloatBuffer positions = (FloatBuffer) mesh.getBuffer(VertexBuffer.Type.Position).getData();
+        for (int i = 0; i < instances.size(); i++) {
+            float x = instances.get(i).x;
+            float y = instances.get(i).y;
+            int p = i * 12;
+            assertEquals(x - 10, positions.get(p));
+            assertEquals(y - 5, positions.get(p + 1));
+            assertEquals(0f, positions.get(p + 2));
+            assertEquals(x + 10, positions.get(p + 6));
+            assertEquals(y + 5, positions.get(p + 7));
+        }
+    }
+}